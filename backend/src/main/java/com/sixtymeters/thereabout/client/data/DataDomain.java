@@ -0,0 +1,12 @@
+package com.sixtymeters.thereabout.client.data;
+
+/**
+ * The kinds of day-based data whose versions are tracked for HTTP caching.
+ */
+public enum DataDomain {
+    LOCATION,
+    // the precomputed track pyramid, rebuilt asynchronously after LOCATION changed
+    LOCATION_TRACK,
+    HEALTH,
+    MESSAGE
+}
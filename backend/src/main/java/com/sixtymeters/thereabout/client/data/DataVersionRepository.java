@@ -0,0 +1,75 @@
+package com.sixtymeters.thereabout.client.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Maintains {@code day_version} and {@code domain_version}. Versions are drawn from one sequence, so a new version
+ * is always greater than every version stored before.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DataVersionRepository {
+
+    private static final String TOUCH_DAY = """
+            INSERT INTO day_version (domain, day, version)
+            VALUES (?, ?, NEXT VALUE FOR data_version_seq)
+            ON DUPLICATE KEY UPDATE version = VALUES(version)
+            """;
+
+    private static final String TOUCH_DOMAIN = """
+            INSERT INTO domain_version (domain, version)
+            VALUES (?, NEXT VALUE FOR data_version_seq)
+            ON DUPLICATE KEY UPDATE version = VALUES(version)
+            """;
+
+    private static final String FIND_RANGE_VERSION = """
+            SELECT (SELECT COALESCE(MAX(version), 0) FROM domain_version WHERE domain = ?),
+                   COUNT(*),
+                   COALESCE(SUM(version), 0)
+            FROM   day_version
+            WHERE  domain = ?
+              AND  day BETWEEN ? AND ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The state of a date range: as versions only ever grow, any write to one of its days changes the sum.
+     *
+     * @param domainVersion the version of changes that affect every day of the domain
+     * @param days          the number of days with a version
+     * @param versionSum    the sum of the versions of these days
+     */
+    public record RangeVersion(long domainVersion, long days, BigDecimal versionSum) {
+    }
+
+    @Transactional
+    public void touchDays(DataDomain domain, Collection<LocalDate> days) {
+        jdbcTemplate.batchUpdate(TOUCH_DAY, days, days.size(), (ps, day) -> {
+            ps.setString(1, domain.name());
+            ps.setObject(2, day);
+        });
+    }
+
+    @Transactional
+    public void touchDomain(DataDomain domain) {
+        jdbcTemplate.update(TOUCH_DOMAIN, domain.name());
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public RangeVersion findRangeVersion(DataDomain domain, LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject(FIND_RANGE_VERSION,
+                (rs, rowNum) -> new RangeVersion(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3)),
+                domain.name(), domain.name(), from, to);
+    }
+}
@@ -0,0 +1,82 @@
+package com.sixtymeters.thereabout.client.service;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.data.DataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Version stamps of day-based data, used to answer repeated reads of unchanged days with 304 Not Modified.
+ * <p>
+ * Writers touch the days they change, in the same transaction where possible. Readers must compute the ETag before
+ * they read the data: a write in between then leads to an outdated ETag for new data, which only costs one more
+ * full response, never to a current ETag for outdated data.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+
+    private static final Splitter ETAG_LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final DataVersionRepository dataVersionRepository;
+
+    @Transactional
+    public void touch(DataDomain domain, Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        // always lock the rows in the same order
+        dataVersionRepository.touchDays(domain, days.stream().distinct().sorted().toList());
+    }
+
+    /**
+     * Mark every day of the domain as changed, for writes that aren't bound to days.
+     */
+    @Transactional
+    public void touchAll(DataDomain domain) {
+        dataVersionRepository.touchDomain(domain);
+    }
+
+    /**
+     * A strong ETag for a response built from the given domains and date range.
+     *
+     * @param from       inclusive
+     * @param to         inclusive
+     * @param parameters further request parameters that change the response
+     */
+    public String etag(List<DataDomain> domains, LocalDate from, LocalDate to, Object... parameters) {
+        final var hasher = Hashing.sha256().newHasher()
+                .putString(from.toString(), StandardCharsets.UTF_8)
+                .putString(to.toString(), StandardCharsets.UTF_8);
+        for (DataDomain domain : domains) {
+            final var rangeVersion = dataVersionRepository.findRangeVersion(domain, from, to);
+            hasher.putString(domain.name(), StandardCharsets.UTF_8)
+                    .putLong(rangeVersion.domainVersion())
+                    .putLong(rangeVersion.days())
+                    .putString(rangeVersion.versionSum().toPlainString(), StandardCharsets.UTF_8);
+        }
+        for (Object parameter : parameters) {
+            hasher.putString(String.valueOf(parameter), StandardCharsets.UTF_8).putChar('\n');
+        }
+        return "\"%s\"".formatted(hasher.hash().toString().substring(0, 32));
+    }
+
+    /**
+     * @param ifNoneMatch the If-None-Match header of the request, a list of ETags or *
+     */
+    public static boolean isNotModified(Optional<String> ifNoneMatch, String etag) {
+        return ifNoneMatch
+                .map(ETAG_LIST_SPLITTER::splitToList)
+                .map(tags -> tags.stream().anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)))
+                .orElse(false);
+    }
+}
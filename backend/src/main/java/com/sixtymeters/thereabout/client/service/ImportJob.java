@@ -0,0 +1,110 @@
+package com.sixtymeters.thereabout.client.service;
+
+import com.sixtymeters.thereabout.generated.model.GenImportType;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A file import scheduled by the {@link ImportJobRegistry}. The importer updates it from its own thread(s) while
+ * the import jobs API reads it, so all mutable state is volatile.
+ */
+@Getter
+public class ImportJob {
+
+    private final String id;
+    private final GenImportType importType;
+    private final String fileName;
+    private final long totalBytes;
+    private final Instant createdAt = Instant.now();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile String stage = "queued";
+    private volatile int progress;
+    private volatile long bytesRead;
+    private volatile long recordsProcessed;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String errorMessage;
+
+    ImportJob(String id, GenImportType importType, String fileName, long totalBytes) {
+        this.id = id;
+        this.importType = importType;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * @param progress percentage from 0 to 100, for importers that can't express their progress in bytes
+     */
+    public void setProgress(int progress) {
+        this.progress = Math.clamp(progress, 0, 100);
+    }
+
+    public void setRecordsProcessed(long recordsProcessed) {
+        this.recordsProcessed = recordsProcessed;
+    }
+
+    /**
+     * Report how much of the file has been consumed, which also updates the percentage.
+     */
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+        if (totalBytes > 0) {
+            setProgress((int) (bytesRead * 100 / totalBytes));
+        }
+    }
+
+    public boolean isActive() {
+        return status == ImportJobStatus.QUEUED || status == ImportJobStatus.RUNNING;
+    }
+
+    public double getRecordsPerSecond() {
+        final var elapsed = elapsed();
+        return elapsed.isZero() ? 0 : recordsProcessed * 1000.0 / elapsed.toMillis();
+    }
+
+    /**
+     * Extrapolates the time spent so far, assuming the remaining part of the file imports at the same speed.
+     */
+    public Optional<Duration> getEstimatedTimeRemaining() {
+        if (status != ImportJobStatus.RUNNING || progress == 0) {
+            return Optional.empty();
+        }
+        final double done = totalBytes > 0 && bytesRead > 0 ? Math.min(1, bytesRead / (double) totalBytes) : progress / 100.0;
+        return Optional.of(Duration.ofMillis((long) (elapsed().toMillis() * (1 - done) / done)));
+    }
+
+    private Duration elapsed() {
+        if (startedAt == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = ImportJobStatus.RUNNING;
+        stage = "running";
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+        progress = 100;
+        status = ImportJobStatus.FINISHED;
+        stage = "finished";
+    }
+
+    void fail(String errorMessage) {
+        finishedAt = Instant.now();
+        this.errorMessage = errorMessage;
+        status = ImportJobStatus.FAILED;
+        stage = "failed";
+    }
+}
@@ -0,0 +1,126 @@
+package com.sixtymeters.thereabout.client.service;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.generated.model.GenImportType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs file imports on a bounded executor of its own and keeps track of them as {@link ImportJob}s, so concurrent
+ * imports can be watched separately. Importers report their progress through {@link ImportProgressService}, which
+ * finds the job via a thread local. Threads started by an import (e.g. pipeline stages) only report to the job if
+ * their task is wrapped with {@link #withCurrentJob(Runnable)}, threads that outlive the job never keep it.
+ */
+@Slf4j
+@Service
+public class ImportJobRegistry {
+
+    private static final ThreadLocal<ImportJob> CURRENT_JOB = new ThreadLocal<>();
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final int retainedFinishedJobs;
+
+    public ImportJobRegistry(ImportProperties importProperties) {
+        final var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(importProperties.getMaxConcurrentJobs(), importProperties.getMaxConcurrentJobs(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(importProperties.getMaxQueuedJobs()),
+                runnable -> new Thread(runnable, "import-" + threadNumber.incrementAndGet()));
+        this.retainedFinishedJobs = importProperties.getRetainedFinishedJobs();
+    }
+
+    /**
+     * Schedule an import of the given file.
+     *
+     * @throws ThereaboutException with 503 if the queue is full
+     */
+    public ImportJob submit(GenImportType importType, File file, Runnable importer) {
+        final var job = new ImportJob(UUID.randomUUID().toString(), importType, file.getName(), file.length());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, importer));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ThereaboutException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many imports are waiting already, retry once one of them finished.");
+        }
+        log.info("Scheduled import job %s for '%s' (%s).".formatted(job.getId(), job.getFileName(), importType));
+        evictFinishedJobs();
+        return job;
+    }
+
+    public List<ImportJob> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getCreatedAt).reversed())
+                .toList();
+    }
+
+    public Optional<ImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * @return the job the calling thread works for, empty outside of imports
+     */
+    public Optional<ImportJob> currentJob() {
+        return Optional.ofNullable(CURRENT_JOB.get());
+    }
+
+    /**
+     * @return the task, running for the job of the calling thread on whichever thread executes it
+     */
+    public Runnable withCurrentJob(Runnable task) {
+        final var job = CURRENT_JOB.get();
+        if (job == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT_JOB.set(job);
+            try {
+                task.run();
+            } finally {
+                CURRENT_JOB.remove();
+            }
+        };
+    }
+
+    private void run(ImportJob job, Runnable importer) {
+        CURRENT_JOB.set(job);
+        job.start();
+        try {
+            importer.run();
+            job.finish();
+            log.info("Import job %s for '%s' finished.".formatted(job.getId(), job.getFileName()));
+        } catch (RuntimeException e) {
+            job.fail(e instanceof ResponseStatusException responseStatusException ? responseStatusException.getReason() : e.getMessage());
+            log.error("Import job %s for '%s' failed.".formatted(job.getId(), job.getFileName()), e);
+        } finally {
+            CURRENT_JOB.remove();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        jobs.values().stream()
+                .filter(job -> !job.isActive())
+                .sorted(Comparator.comparing(ImportJob::getFinishedAt).reversed())
+                .skip(retainedFinishedJobs)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package com.sixtymeters.thereabout.client.service;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    FINISHED,
+    FAILED
+}
@@ -1,28 +1,48 @@
 package com.sixtymeters.thereabout.client.service;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
- * Shared service for tracking the progress of file imports across all import types.
- * Progress is represented as a percentage (0 = idle, 1-99 = in progress).
- * Resetting to 0 signals that the import has completed.
+ * Progress reporting for importers. Updates the {@link ImportJob} the calling thread works for, calls outside of an
+ * import job are ignored.
  */
 @Service
+@RequiredArgsConstructor
 public class ImportProgressService {
 
-    private final AtomicInteger progress = new AtomicInteger(0);
+    private final ImportJobRegistry importJobRegistry;
+
+    /**
+     * Wraps a task an importer runs on a thread of its own, so its progress is reported to the same job.
+     */
+    public Runnable withCurrentJob(Runnable task) {
+        return importJobRegistry.withCurrentJob(task);
+    }
 
+    /**
+     * @return the progress of the current job as a percentage, 0 outside of an import job
+     */
     public int getProgress() {
-        return progress.get();
+        return importJobRegistry.currentJob().map(ImportJob::getProgress).orElse(0);
     }
 
     public void setProgress(int value) {
-        progress.set(value);
+        importJobRegistry.currentJob().ifPresent(job -> job.setProgress(value));
+    }
+
+    public void setStage(String stage) {
+        importJobRegistry.currentJob().ifPresent(job -> job.setStage(stage));
+    }
+
+    public void setRecordsProcessed(long recordsProcessed) {
+        importJobRegistry.currentJob().ifPresent(job -> job.setRecordsProcessed(recordsProcessed));
     }
 
-    public void reset() {
-        progress.set(0);
+    /**
+     * Report how many bytes of the file have been consumed, the progress percentage is derived from it.
+     */
+    public void setBytesRead(long bytesRead) {
+        importJobRegistry.currentJob().ifPresent(job -> job.setBytesRead(bytesRead));
     }
 }
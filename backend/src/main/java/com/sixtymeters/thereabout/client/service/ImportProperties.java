@@ -0,0 +1,31 @@
+package com.sixtymeters.thereabout.client.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits for file imports started through the frontend.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thereabout.import")
+public class ImportProperties {
+
+    /**
+     * How many imports run at the same time. Further imports wait in the queue.
+     */
+    private int maxConcurrentJobs = 2;
+
+    /**
+     * How many imports may wait for a free slot before new ones are rejected.
+     */
+    private int maxQueuedJobs = 20;
+
+    /**
+     * How many finished or failed jobs are kept for the import jobs API.
+     */
+    private int retainedFinishedJobs = 50;
+}
@@ -1,12 +1,15 @@
 package com.sixtymeters.thereabout.client.transport;
 
 import com.sixtymeters.thereabout.client.service.ConfigurationService;
-import com.sixtymeters.thereabout.client.service.ImportProgressService;
+import com.sixtymeters.thereabout.client.service.ImportJob;
+import com.sixtymeters.thereabout.client.service.ImportJobRegistry;
 import com.sixtymeters.thereabout.communication.service.importer.FileImporter;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
 import com.sixtymeters.thereabout.location.service.LocationHistoryService;
 import com.sixtymeters.thereabout.generated.api.FrontendApi;
 import com.sixtymeters.thereabout.generated.model.GenFileImportStatus;
 import com.sixtymeters.thereabout.generated.model.GenFrontendConfigurationResponse;
+import com.sixtymeters.thereabout.generated.model.GenImportJob;
 import com.sixtymeters.thereabout.generated.model.GenImportType;
 import com.sixtymeters.thereabout.generated.model.GenTelegramCodeRequest;
 import com.sixtymeters.thereabout.generated.model.GenTelegramConnectRequest;
@@ -19,6 +22,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.info.GitProperties;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -31,31 +35,45 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class FrontendConfigurationController implements FrontendApi {
 
+    private static final Set<GenImportType> RESUMABLE_IMPORT_TYPES = EnumSet.of(GenImportType.GOOGLE_MAPS_RECORDS, GenImportType.GOOGLE_TIMELINE_JSON);
+
     @Value("${thereabout.apiKeys.googleMaps}")
     private String googleMapsApiKey;
 
+    @Value("${thereabout.import.import-folder}")
+    private String importFolder;
+
     private final LocationHistoryService locationHistoryService;
     private final ConfigurationService configurationService;
-    private final ImportProgressService importProgressService;
+    private final ImportJobRegistry importJobRegistry;
     private final GitProperties gitProperties;
     private final List<FileImporter> fileImporters;
     private final TelegramConnectionService telegramConnectionService;
 
     @Override
     public ResponseEntity<GenFileImportStatus> fileImportStatus() {
-        final var importProgress = importProgressService.getProgress();
+        // summary over all imports: in progress until the slowest one finished
+        final var importProgress = importJobRegistry.getJobs().stream()
+                .filter(ImportJob::isActive)
+                .mapToInt(job -> Math.max(job.getProgress(), 1))
+                .min()
+                .orElse(0);
 
         return ResponseEntity.ok(GenFileImportStatus.builder()
                 .status(mapImportProgressToStatus(importProgress))
@@ -91,7 +109,7 @@ public class FrontendConfigurationController implements FrontendApi {
     }
 
     @Override
-    public ResponseEntity<Void> importFromFile(MultipartFile file, GenImportType importType, String receiver) {
+    public ResponseEntity<GenImportJob> importFromFile(MultipartFile file, GenImportType importType, String receiver) {
         log.info("Received file %s with import type %s via HTTP Endpoint /backend/api/v1/config/import-file"
                 .formatted(file.getOriginalFilename(), importType));
 
@@ -99,25 +117,94 @@ public class FrontendConfigurationController implements FrontendApi {
             throw new ThereaboutException(HttpStatusCode.valueOf(400), "file is required");
         }
 
-        final var importDataToBeProcessed = persistTempFileForProcessing(file);
-
-        if (importType == GenImportType.GOOGLE_MAPS_RECORDS) {
-            locationHistoryService.importGoogleLocationHistory(importDataToBeProcessed);
-        } else {
-            FileImporter importer = fileImporters.stream()
-                    .filter(fi -> fi.getSupportedImportType() == importType)
-                    .findFirst()
-                    .orElseThrow(() -> new ThereaboutException(HttpStatusCode.valueOf(400),
-                            "No importer found for import type: %s".formatted(importType)));
-            CompletableFuture.runAsync(() -> importer.importFile(importDataToBeProcessed, receiver));
+        final var importDataToBeProcessed = persistTempFileForProcessing(file, importType);
+        try {
+            final var job = RESUMABLE_IMPORT_TYPES.contains(importType)
+                    ? submitLocationImport(importType, importDataToBeProcessed)
+                    : submitFileImport(importType, importDataToBeProcessed, receiver);
+            return ResponseEntity.accepted().body(mapToGenImportJob(job));
+        } catch (RuntimeException e) {
+            // nothing imports a rejected upload, it would stay on disk otherwise
+            deleteUpload(importDataToBeProcessed);
+            throw e;
         }
+    }
 
-        return ResponseEntity.noContent().build();
+    private ImportJob submitLocationImport(GenImportType importType, File upload) {
+        // persisted before it is queued, so an import that is still waiting is started after a restart as well
+        final var locationImportJob = locationHistoryService.queueLocationHistoryImport(upload, locationImportFormatOf(importType));
+        try {
+            return importJobRegistry.submit(importType, upload,
+                    () -> locationHistoryService.resumeLocationHistoryImport(locationImportJob));
+        } catch (ThereaboutException e) {
+            locationHistoryService.failLocationHistoryImport(locationImportJob, e.getReason());
+            throw e;
+        }
+    }
+
+    private ImportJob submitFileImport(GenImportType importType, File upload, String receiver) {
+        FileImporter importer = fileImporters.stream()
+                .filter(fi -> fi.getSupportedImportType() == importType)
+                .findFirst()
+                .orElseThrow(() -> new ThereaboutException(HttpStatusCode.valueOf(400),
+                        "No importer found for import type: %s".formatted(importType)));
+        return importJobRegistry.submit(importType, upload, () -> importer.importFile(upload, receiver));
+    }
+
+    private static LocationImportFormat locationImportFormatOf(GenImportType importType) {
+        return switch (importType) {
+            case GOOGLE_MAPS_RECORDS -> LocationImportFormat.GOOGLE_RECORDS;
+            case GOOGLE_TIMELINE_JSON -> LocationImportFormat.GOOGLE_TIMELINE;
+            default -> throw new ThereaboutException(HttpStatusCode.valueOf(400),
+                    "%s is not a location history import".formatted(importType));
+        };
+    }
+
+    @Override
+    public ResponseEntity<List<GenImportJob>> getImportJobs() {
+        return ResponseEntity.ok(importJobRegistry.getJobs().stream()
+                .map(FrontendConfigurationController::mapToGenImportJob)
+                .toList());
     }
 
-    private File persistTempFileForProcessing(MultipartFile file) {
+    @Override
+    public ResponseEntity<GenImportJob> getImportJob(String id) {
+        return importJobRegistry.getJob(id)
+                .map(FrontendConfigurationController::mapToGenImportJob)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ThereaboutException(HttpStatus.NOT_FOUND, "Import job %s not found".formatted(id)));
+    }
+
+    private static GenImportJob mapToGenImportJob(ImportJob job) {
+        return GenImportJob.builder()
+                .id(job.getId())
+                .importType(job.getImportType())
+                .fileName(job.getFileName())
+                .status(GenImportJob.StatusEnum.fromValue(job.getStatus().name()))
+                .stage(job.getStage())
+                .progress(job.getProgress())
+                .bytesRead(job.getBytesRead())
+                .totalBytes(job.getTotalBytes())
+                .recordsProcessed(job.getRecordsProcessed())
+                .recordsPerSecond(job.getRecordsPerSecond())
+                .etaSeconds(job.getEstimatedTimeRemaining().map(Duration::toSeconds).orElse(null))
+                .createdAt(toOffsetDateTime(job.getCreatedAt()))
+                .startedAt(toOffsetDateTime(job.getStartedAt()))
+                .finishedAt(toOffsetDateTime(job.getFinishedAt()))
+                .errorMessage(job.getErrorMessage())
+                .build();
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private File persistTempFileForProcessing(MultipartFile file, GenImportType importType) {
         try {
-            Path tempDir = Files.createTempDirectory("upload");
+            // location imports resume after a restart, so their upload must outlive the container
+            Path tempDir = RESUMABLE_IMPORT_TYPES.contains(importType)
+                    ? Files.createTempDirectory(Files.createDirectories(Path.of(importFolder, "uploads")), "upload")
+                    : Files.createTempDirectory("upload");
             File tempFile = new File(tempDir.toFile(), Objects.requireNonNull(file.getOriginalFilename()));
             file.transferTo(tempFile);
             log.info("Stored temporary file %s in %s".formatted(file.getName(), tempFile.getAbsolutePath()));
@@ -127,6 +214,16 @@ public class FrontendConfigurationController implements FrontendApi {
         }
     }
 
+    private static void deleteUpload(File upload) {
+        try {
+            Files.deleteIfExists(upload.toPath());
+            // every upload is stored in a directory of its own
+            Files.deleteIfExists(upload.toPath().getParent());
+        } catch (IOException e) {
+            log.warn("Failed to clean up upload %s: %s".formatted(upload, e.getMessage()));
+        }
+    }
+
     @Override
     public ResponseEntity<GenTelegramStatus> getTelegramStatus() {
         String status = telegramConnectionService.getStatus();
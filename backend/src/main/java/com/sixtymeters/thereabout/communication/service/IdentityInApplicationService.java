@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.communication.service;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.communication.data.*;
 import com.sixtymeters.thereabout.config.ThereaboutException;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +19,7 @@ public class IdentityInApplicationService {
 
     private final IdentityInApplicationRepository identityInApplicationRepository;
     private final IdentityRepository identityRepository;
+    private final DataVersionService dataVersionService;
 
     public List<IdentityInApplicationEntity> getUnlinkedAppIdentities() {
         return identityInApplicationRepository.findByIdentityIsNull();
@@ -37,6 +40,8 @@ public class IdentityInApplicationService {
                         "Identity with id %d not found".formatted(identityId)));
 
         appIdentity.setIdentity(identity);
+        // messages of the application identity are now shown with the name of the identity
+        dataVersionService.touchAll(DataDomain.MESSAGE);
         return identityInApplicationRepository.save(appIdentity);
     }
 
@@ -47,6 +52,7 @@ public class IdentityInApplicationService {
                         "Application identity with id %d not found".formatted(appIdentityId)));
 
         appIdentity.setIdentity(null);
+        dataVersionService.touchAll(DataDomain.MESSAGE);
         return identityInApplicationRepository.save(appIdentity);
     }
 }
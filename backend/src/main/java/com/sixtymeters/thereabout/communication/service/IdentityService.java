@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.communication.service;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.communication.data.IdentityEntity;
 import com.sixtymeters.thereabout.communication.data.IdentityInApplicationEntity;
 import com.sixtymeters.thereabout.communication.data.IdentityRepository;
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 public class IdentityService {
 
     private final IdentityRepository identityRepository;
+    private final DataVersionService dataVersionService;
 
     public List<IdentityEntity> getAllIdentities() {
         return identityRepository.findAll();
@@ -30,6 +33,8 @@ public class IdentityService {
         if (identity.getIdentityInApplications() != null) {
             identity.getIdentityInApplications().forEach(app -> app.setIdentity(identity));
         }
+        // the participants of messages are shown with the name of their identity
+        dataVersionService.touchAll(DataDomain.MESSAGE);
         return identityRepository.save(identity);
     }
 
@@ -62,6 +67,7 @@ public class IdentityService {
             }
         }
 
+        dataVersionService.touchAll(DataDomain.MESSAGE);
         return identityRepository.save(existing);
     }
 
@@ -71,5 +77,6 @@ public class IdentityService {
             throw new ThereaboutException(HttpStatusCode.valueOf(404), "Identity with id %d not found".formatted(id));
         }
         identityRepository.deleteById(id);
+        dataVersionService.touchAll(DataDomain.MESSAGE);
     }
 }
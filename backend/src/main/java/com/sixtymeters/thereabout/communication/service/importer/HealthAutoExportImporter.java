@@ -48,6 +48,7 @@ public class HealthAutoExportImporter implements FileImporter {
         importProgressService.setProgress(1);
 
         try {
+            importProgressService.setStage("parsing");
             String content = Files.readString(file.toPath());
             JsonNode root = jsonMapper.readTree(content);
 
@@ -67,12 +68,14 @@ public class HealthAutoExportImporter implements FileImporter {
 
             GenHealthData healthData = request.getData();
             if (healthData.getMetrics() != null && !healthData.getMetrics().isEmpty()) {
+                importProgressService.setStage("saving metrics");
                 healthDataService.saveHealthMetrics(healthData.getMetrics());
                 log.info("Saved {} health metrics from file", healthData.getMetrics().size());
                 importProgressService.setProgress(50);
             }
 
             if (healthData.getWorkouts() != null && !healthData.getWorkouts().isEmpty()) {
+                importProgressService.setStage("saving workouts");
                 healthDataService.saveWorkouts(healthData.getWorkouts());
                 log.info("Saved {} workouts from file", healthData.getWorkouts().size());
                 importProgressService.setProgress(100);
@@ -81,7 +84,6 @@ public class HealthAutoExportImporter implements FileImporter {
             throw new ThereaboutException(HttpStatusCode.valueOf(400),
                     "Failed to read Health Auto Export file '%s': %s".formatted(file.getName(), e.getMessage()));
         } finally {
-            importProgressService.reset();
             cleanupTempFile(file);
         }
 
@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.communication.service.importer;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.client.service.ImportProgressService;
 import com.sixtymeters.thereabout.communication.data.*;
 import com.sixtymeters.thereabout.config.ThereaboutException;
@@ -18,6 +20,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -38,6 +41,7 @@ public class WhatsAppChatImporter implements FileImporter {
     private final IdentityRepository identityRepository;
     private final MessageRepository messageRepository;
     private final ImportProgressService importProgressService;
+    private final DataVersionService dataVersionService;
 
     @Override
     public GenImportType getSupportedImportType() {
@@ -50,11 +54,13 @@ public class WhatsAppChatImporter implements FileImporter {
         importProgressService.setProgress(1);
 
         try {
+            importProgressService.setStage("counting messages");
             long totalMessages = countMessages(file);
             log.info("Counted {} messages in WhatsApp chat file: {}", totalMessages, file.getName());
 
             IdentityInApplicationEntity receiverEntity = getOrCreateReceiver(receiver);
 
+            importProgressService.setStage("importing messages");
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
                 processFile(reader, totalMessages, receiverEntity);
             }
@@ -62,7 +68,6 @@ public class WhatsAppChatImporter implements FileImporter {
             throw new ThereaboutException(HttpStatusCode.valueOf(400),
                     "Failed to read WhatsApp chat file '%s': %s".formatted(file.getName(), e.getMessage()));
         } finally {
-            importProgressService.reset();
             cleanupTempFile(file);
         }
 
@@ -197,6 +202,7 @@ public class WhatsAppChatImporter implements FileImporter {
         }
         int percentage = (int) ((messagesProcessed / (float) totalMessages) * 100);
         percentage = Math.max(percentage, 1);
+        importProgressService.setRecordsProcessed(messagesProcessed);
         int previous = importProgressService.getProgress();
         importProgressService.setProgress(percentage);
         if (percentage != previous) {
@@ -260,6 +266,9 @@ public class WhatsAppChatImporter implements FileImporter {
     private long flushBatch(List<MessageEntity> batch) {
         messageRepository.saveAll(batch);
         messageRepository.flush();
+        dataVersionService.touch(DataDomain.MESSAGE, batch.stream()
+                .map(message -> message.getTimestamp().toLocalDate())
+                .collect(Collectors.toSet()));
         long size = batch.size();
         log.info("Flushed batch of {} WhatsApp messages.", size);
         batch.clear();
@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.communication.telegram;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.communication.data.*;
 import it.tdlight.client.APIToken;
 import it.tdlight.client.AuthenticationSupplier;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PreDestroy;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -26,6 +29,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 /**
  * Manages TDLib client lifecycle, authorization, and message sync. Does not call openChat/viewMessages (no read receipts).
@@ -44,6 +48,7 @@ public class TelegramTdlibService {
     private final TelegramSyncCheckpointRepository checkpointRepository;
     private final TelegramMessageMapper messageMapper;
     private final MessageRepository messageRepository;
+    private final DataVersionService dataVersionService;
 
     private final AtomicReference<SimpleTelegramClient> clientRef = new AtomicReference<>();
     private final AtomicReference<SimpleTelegramClientFactory> factoryRef = new AtomicReference<>();
@@ -74,13 +79,15 @@ public class TelegramTdlibService {
             TelegramConnectionRepository connectionRepository,
             TelegramSyncCheckpointRepository checkpointRepository,
             TelegramMessageMapper messageMapper,
-            MessageRepository messageRepository
+            MessageRepository messageRepository,
+            DataVersionService dataVersionService
     ) {
         this.properties = properties;
         this.connectionRepository = connectionRepository;
         this.checkpointRepository = checkpointRepository;
         this.messageMapper = messageMapper;
         this.messageRepository = messageRepository;
+        this.dataVersionService = dataVersionService;
     }
 
     public ThereaboutClientInteraction getClientInteraction() {
@@ -222,6 +229,7 @@ public class TelegramTdlibService {
             MessageEntity entity = messageMapper.toMessageEntity(msg, chatIdStr, chatIdStr, receiverTitle, receiverIsGroup, senderUserId, senderUsernameHint);
             if (entity != null) {
                 messageRepository.save(entity);
+                dataVersionService.touch(DataDomain.MESSAGE, Set.of(entity.getTimestamp().toLocalDate()));
                 updateLastSyncTime();
             }
         } catch (Exception e) {
@@ -522,6 +530,7 @@ public class TelegramTdlibService {
                 }
                 if (!batch.isEmpty()) {
                     messageRepository.saveAll(batch);
+                    dataVersionService.touch(DataDomain.MESSAGE, messageDays(batch));
                     total += batch.size();
                 }
                 long previousFromMessageId = fromMessageId;
@@ -587,6 +596,7 @@ public class TelegramTdlibService {
                 }
                 if (!batch.isEmpty()) {
                     messageRepository.saveAll(batch);
+                    dataVersionService.touch(DataDomain.MESSAGE, messageDays(batch));
                     total += batch.size();
                 }
                 long previousFromMessageId = fromMessageId;
@@ -681,4 +691,8 @@ public class TelegramTdlibService {
         closeClientQuietly();
         executor.shutdown();
     }
+
+    private static Set<LocalDate> messageDays(List<MessageEntity> messages) {
+        return messages.stream().map(message -> message.getTimestamp().toLocalDate()).collect(Collectors.toSet());
+    }
 }
@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.communication.transport;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.communication.service.MessageService;
 import com.sixtymeters.thereabout.communication.transport.mapper.MessageMapper;
 import com.sixtymeters.thereabout.generated.api.MessageApi;
@@ -7,6 +9,8 @@ import com.sixtymeters.thereabout.generated.model.GenMessage;
 import com.sixtymeters.thereabout.generated.model.GenMessagePage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,13 +26,18 @@ public class MessageController implements MessageApi {
 
     private static final MessageMapper MESSAGE_MAPPER = MessageMapper.INSTANCE;
     private final MessageService messageService;
+    private final DataVersionService dataVersionService;
 
     @Override
-    public ResponseEntity<List<GenMessage>> getMessages(LocalDate date) {
+    public ResponseEntity<List<GenMessage>> getMessages(LocalDate date, Optional<String> ifNoneMatch) {
+        String etag = dataVersionService.etag(List.of(DataDomain.MESSAGE), date, date);
+        if (DataVersionService.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<GenMessage> messages = messageService.getMessagesByDate(date).stream()
                 .map(MESSAGE_MAPPER::mapToGenMessage)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(messages);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(messages);
     }
 
     @Override
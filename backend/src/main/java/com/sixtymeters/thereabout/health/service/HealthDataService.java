@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.health.service;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.generated.model.*;
 import com.sixtymeters.thereabout.health.service.dto.DailyMetricValue;
 import com.sixtymeters.thereabout.health.service.dto.HealthDataResponse;
@@ -17,8 +19,10 @@ import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -41,6 +45,7 @@ public class HealthDataService {
     private final HealthMetricHeartRateNotificationDataRepository heartRateNotificationDataRepository;
     private final WorkoutRepository workoutRepository;
     private final WorkoutTimeSeriesDataRepository workoutTimeSeriesDataRepository;
+    private final DataVersionService dataVersionService;
 
     @Transactional
     public void saveHealthMetrics(List<GenHealthMetric> metrics) {
@@ -72,6 +77,7 @@ public class HealthDataService {
                     saveMetricDataItem(metricName, metricDate, units, dataItem);
                 }
             }
+            dataVersionService.touch(DataDomain.HEALTH, dataByDate.keySet());
         }
     }
 
@@ -88,7 +94,16 @@ public class HealthDataService {
             }
 
             WorkoutEntity workoutEntity = mapWorkoutToEntity(workout);
+            // a workout moved to another day changes the old day too
+            Set<LocalDate> changedDays = new HashSet<>();
+            workoutRepository.findById(workout.getId())
+                    .map(WorkoutEntity::getStart)
+                    .ifPresent(start -> changedDays.add(start.toLocalDate()));
+            if (workoutEntity.getStart() != null) {
+                changedDays.add(workoutEntity.getStart().toLocalDate());
+            }
             workoutRepository.save(workoutEntity);
+            dataVersionService.touch(DataDomain.HEALTH, changedDays);
 
             // Delete existing time-series data and recreate
             workoutTimeSeriesDataRepository.deleteByWorkoutId(workout.getId());
@@ -1,5 +1,7 @@
 package com.sixtymeters.thereabout.health.transport;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.config.AuthorizationService;
 import com.sixtymeters.thereabout.health.service.dto.DailyMetricValue;
 import com.sixtymeters.thereabout.health.service.dto.HealthDataResponse;
@@ -13,6 +15,7 @@ import com.sixtymeters.thereabout.generated.model.GenSubmitHealthDataRequest;
 import com.sixtymeters.thereabout.generated.model.GenWorkoutSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,6 +33,7 @@ public class HealthController implements HealthApi {
 
     private final HealthDataService healthDataService;
     private final AuthorizationService authorizationService;
+    private final DataVersionService dataVersionService;
 
     @Override
     public ResponseEntity<Void> submitHealthData(String authorization, GenSubmitHealthDataRequest genSubmitHealthDataRequest) {
@@ -62,12 +66,17 @@ public class HealthController implements HealthApi {
     }
 
     @Override
-    public ResponseEntity<GenHealthDataResponse> getHealthDataByDateRange(LocalDate fromDate, Optional<LocalDate> toDate) {
+    public ResponseEntity<GenHealthDataResponse> getHealthDataByDateRange(LocalDate fromDate, Optional<LocalDate> toDate,
+                                                                          Optional<String> ifNoneMatch) {
         try {
             LocalDate endDate = toDate.orElse(fromDate);
+            String etag = dataVersionService.etag(List.of(DataDomain.HEALTH), fromDate, endDate);
+            if (DataVersionService.isNotModified(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             HealthDataResponse domainResponse = healthDataService.getHealthData(fromDate, endDate);
             GenHealthDataResponse genResponse = convertToGenResponse(domainResponse);
-            return ResponseEntity.ok(genResponse);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(genResponse);
         } catch (IllegalArgumentException e) {
             log.warn("Invalid date range: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,24 @@
+package com.sixtymeters.thereabout.location.data;
+
+import java.util.List;
+
+/**
+ * A map viewport in degrees. A box whose west edge lies east of its east edge spans the antimeridian.
+ */
+public record BoundingBox(double south, double west, double north, double east) {
+
+    public boolean isValid() {
+        return south >= -90 && north <= 90 && south <= north
+                && Math.abs(west) <= 180 && Math.abs(east) <= 180;
+    }
+
+    /**
+     * @return the box itself, or its parts on both sides of the antimeridian
+     */
+    public List<BoundingBox> splitAtAntimeridian() {
+        if (west <= east) {
+            return List.of(this);
+        }
+        return List.of(new BoundingBox(south, west, north, 180), new BoundingBox(south, -180, north, east));
+    }
+}
@@ -0,0 +1,88 @@
+package com.sixtymeters.thereabout.location.data;
+
+import com.sixtymeters.thereabout.location.service.statistics.CountryVisitInfo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains {@code country_day}, the days spent in each country.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CountryDayRepository {
+
+    // same selection as in V24__Create_country_day_table.sql
+    private static final String REBUILD_DAY = """
+            INSERT INTO country_day (country, day)
+            SELECT DISTINCT estimated_iso_country_code, ?
+            FROM   location_history_entry
+            WHERE  timestamp >= ? AND timestamp < ? AND ignore_entry = false
+              AND  estimated_iso_country_code IS NOT NULL
+              AND  estimated_iso_country_code <> ''
+            """;
+
+    private static final String FIND_COUNTRY_VISITS = """
+            SELECT country, COUNT(*) AS day_count, MIN(day) AS first_visit, MAX(day) AS last_visit
+            FROM   country_day
+            GROUP  BY country
+            """;
+
+    private static final String FIND_FIRST_VISITED_BETWEEN = """
+            SELECT country
+            FROM   country_day
+            GROUP  BY country
+            HAVING MIN(day) BETWEEN ? AND ?
+            ORDER  BY country
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Collect the countries of the entries of the given days again.
+     */
+    @Transactional
+    public void rebuildDays(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            jdbcTemplate.update("DELETE FROM country_day WHERE day = ?", day);
+            jdbcTemplate.update(REBUILD_DAY, day, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        }
+    }
+
+    /**
+     * The countries of each day, ordered by day and country.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<CountryDay> findByDayBetween(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT country, day FROM country_day WHERE day BETWEEN ? AND ? ORDER BY day, country",
+                (rs, rowNum) -> new CountryDay(rs.getString("country"), rs.getObject("day", LocalDate.class)), from, to);
+    }
+
+    /**
+     * The countries that were visited for the first time within a range of days, in alphabetical order.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<String> findFirstVisitedBetween(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForList(FIND_FIRST_VISITED_BETWEEN, String.class, from, to);
+    }
+
+    public List<CountryVisitInfo> findCountryVisits() {
+        return jdbcTemplate.query(FIND_COUNTRY_VISITS, (rs, rowNum) -> new CountryVisitInfo(
+                rs.getString("country"),
+                rs.getLong("day_count"),
+                rs.getObject("first_visit", LocalDate.class),
+                rs.getObject("last_visit", LocalDate.class)));
+    }
+
+    public record CountryDay(String country, LocalDate day) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.sixtymeters.thereabout.location.data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The aggregates of the active location history entries of one day.
+ *
+ * @param boundingBox     the box around all entries of the day
+ * @param distanceMeters  the sum of the great-circle distances between consecutive entries
+ * @param lastLatitude    the position of the last entry of the day, usually where the night was spent
+ * @param countries       the ISO codes of the countries of the entries, in alphabetical order
+ * @param pointsPerSource the number of entries per source
+ */
+public record LocationDaySummary(LocalDate day,
+                                 int pointCount,
+                                 BoundingBox boundingBox,
+                                 double distanceMeters,
+                                 LocalDateTime firstFix,
+                                 LocalDateTime lastFix,
+                                 double lastLatitude,
+                                 double lastLongitude,
+                                 List<String> countries,
+                                 Map<LocationHistorySource, Integer> pointsPerSource) {
+}
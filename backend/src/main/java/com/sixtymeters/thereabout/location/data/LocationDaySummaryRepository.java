@@ -0,0 +1,159 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maintains {@code location_day_summary} and {@code location_day_source}, see {@link LocationDaySummary}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationDaySummaryRepository {
+
+    // same aggregation as in V21__Create_location_day_summary_tables.sql and the last position of
+    // V23__Create_trip_proposal_table.sql, a day without active entries inserts no row
+    private static final String REBUILD_SUMMARY = """
+            INSERT INTO location_day_summary (day, point_count, min_latitude, max_latitude, min_longitude, max_longitude,
+                                              distance_meters, first_fix, last_fix, countries, last_latitude,
+                                              last_longitude)
+            SELECT ?,
+                   COUNT(*),
+                   MIN(latitude),
+                   MAX(latitude),
+                   MIN(longitude),
+                   MAX(longitude),
+                   COALESCE(SUM(2 * 6371008.8 * ASIN(SQRT(LEAST(1,
+                           POW(SIN(RADIANS(latitude - previous_latitude) / 2), 2)
+                           + COS(RADIANS(previous_latitude)) * COS(RADIANS(latitude))
+                                 * POW(SIN(RADIANS(longitude - previous_longitude) / 2), 2))))), 0),
+                   MIN(timestamp),
+                   MAX(timestamp),
+                   GROUP_CONCAT(DISTINCT estimated_iso_country_code ORDER BY estimated_iso_country_code),
+                   MAX(last_latitude),
+                   MAX(last_longitude)
+            FROM (SELECT timestamp,
+                         latitude,
+                         longitude,
+                         estimated_iso_country_code,
+                         LAG(latitude) OVER (ORDER BY timestamp, id)  AS previous_latitude,
+                         LAG(longitude) OVER (ORDER BY timestamp, id) AS previous_longitude,
+                         FIRST_VALUE(latitude) OVER (ORDER BY timestamp DESC, id DESC)  AS last_latitude,
+                         FIRST_VALUE(longitude) OVER (ORDER BY timestamp DESC, id DESC) AS last_longitude
+                  FROM location_history_entry
+                  WHERE timestamp >= ? AND timestamp < ? AND ignore_entry = false) points
+            HAVING COUNT(*) > 0
+            """;
+
+    private static final String REBUILD_SOURCES = """
+            INSERT INTO location_day_source (day, source, point_count)
+            SELECT ?, source, COUNT(*)
+            FROM   location_history_entry
+            WHERE  timestamp >= ? AND timestamp < ? AND ignore_entry = false
+            GROUP  BY source
+            """;
+
+    private static final String FIND_SUMMARIES = """
+            SELECT day, point_count, min_latitude, max_latitude, min_longitude, max_longitude, distance_meters,
+                   first_fix, last_fix, countries, last_latitude, last_longitude
+            FROM   location_day_summary
+            WHERE  day BETWEEN ? AND ?
+            ORDER  BY day
+            """;
+
+    private static final String FIND_TOTALS = """
+            SELECT COUNT(*) AS days, COALESCE(SUM(distance_meters), 0) AS distance_meters
+            FROM   location_day_summary
+            WHERE  day BETWEEN ? AND ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aggregate the entries of the given days again.
+     */
+    @Transactional
+    public void rebuildDays(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            final var from = day.atStartOfDay();
+            final var to = day.plusDays(1).atStartOfDay();
+            jdbcTemplate.update("DELETE FROM location_day_summary WHERE day = ?", day);
+            jdbcTemplate.update("DELETE FROM location_day_source WHERE day = ?", day);
+            jdbcTemplate.update(REBUILD_SUMMARY, day, from, to);
+            jdbcTemplate.update(REBUILD_SOURCES, day, from, to);
+        }
+    }
+
+    /**
+     * The summaries of the days with active entries, in chronological order.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<LocationDaySummary> findByDayBetween(LocalDate from, LocalDate to) {
+        final Map<LocalDate, Map<LocationHistorySource, Integer>> pointsPerSource = new HashMap<>();
+        jdbcTemplate.query("SELECT day, source, point_count FROM location_day_source WHERE day BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> pointsPerSource
+                        .computeIfAbsent(rs.getObject(1, LocalDate.class), day -> new EnumMap<>(LocationHistorySource.class))
+                        .put(LocationHistorySource.valueOf(rs.getString(2)), rs.getInt(3)),
+                from, to);
+
+        return jdbcTemplate.query(FIND_SUMMARIES, (rs, rowNum) -> {
+            final var day = rs.getObject("day", LocalDate.class);
+            final var countries = rs.getString("countries");
+            return new LocationDaySummary(
+                    day,
+                    rs.getInt("point_count"),
+                    new BoundingBox(rs.getDouble("min_latitude"), rs.getDouble("min_longitude"),
+                            rs.getDouble("max_latitude"), rs.getDouble("max_longitude")),
+                    rs.getDouble("distance_meters"),
+                    rs.getObject("first_fix", LocalDateTime.class),
+                    rs.getObject("last_fix", LocalDateTime.class),
+                    rs.getDouble("last_latitude"),
+                    rs.getDouble("last_longitude"),
+                    countries == null ? List.of() : List.of(countries.split(",")),
+                    pointsPerSource.getOrDefault(day, Map.of()));
+        }, from, to);
+    }
+
+    /**
+     * The number of days with active entries and their distance within a range of days.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public Totals findTotals(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject(FIND_TOTALS,
+                (rs, rowNum) -> new Totals(rs.getInt("days"), rs.getDouble("distance_meters")), from, to);
+    }
+
+    /**
+     * The first and the last day with active entries, empty without any entries.
+     */
+    public Optional<DayRange> findDayRange() {
+        return jdbcTemplate.query("SELECT MIN(day), MAX(day) FROM location_day_summary",
+                        (rs, rowNum) -> rs.getObject(1, LocalDate.class) == null ? null
+                                : new DayRange(rs.getObject(1, LocalDate.class), rs.getObject(2, LocalDate.class)))
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    public record Totals(int days, double distanceMeters) {
+    }
+
+    public record DayRange(LocalDate first, LocalDate last) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains {@code location_heatmap_cell}, the number of location history entries per day and zoom level
+ * {@value #CELL_ZOOM} Web Mercator tile, and {@code location_heatmap_coarse_cell}, the same counts per zoom level
+ * {@value #COARSE_CELL_ZOOM} tile. Queries for low zoom levels read the coarse cells, which keeps the work of a
+ * world tile independent of how detailed the history is.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationHeatmapRepository {
+
+    public static final int CELL_ZOOM = 20;
+    public static final int COARSE_CELL_ZOOM = 12;
+
+    private static final int COARSE_SHIFT = CELL_ZOOM - COARSE_CELL_ZOOM;
+
+    // same projection as in V18__Create_location_heatmap_cell_table.sql
+    private static final String REBUILD_DAY = """
+            INSERT INTO location_heatmap_cell (cell_x, cell_y, day, count)
+            SELECT cell_x, cell_y, ?, COUNT(*)
+            FROM (SELECT LEAST(GREATEST(FLOOR((longitude + 180) / 360 * 1048576), 0), 1048575) AS cell_x,
+                         LEAST(GREATEST(FLOOR((1 - LN(TAN(RADIANS(lat)) + 1 / COS(RADIANS(lat))) / PI()) / 2 * 1048576), 0),
+                               1048575) AS cell_y
+                  FROM (SELECT longitude, LEAST(GREATEST(latitude, -85.0511287798), 85.0511287798) AS lat
+                        FROM location_history_entry
+                        WHERE timestamp >= ? AND timestamp < ? AND ignore_entry = false) clamped) cells
+            GROUP BY cell_x, cell_y
+            """;
+
+    private static final String REBUILD_COARSE_DAY = """
+            INSERT INTO location_heatmap_coarse_cell (cell_x, cell_y, day, count)
+            SELECT cell_x >> %d, cell_y >> %d, day, SUM(count)
+            FROM   location_heatmap_cell
+            WHERE  day = ?
+            GROUP  BY cell_x >> %d, cell_y >> %d, day
+            """.formatted(COARSE_SHIFT, COARSE_SHIFT, COARSE_SHIFT, COARSE_SHIFT);
+
+    private static final String FIND_CELLS = """
+            SELECT cell_x >> ? AS x, cell_y >> ? AS y, SUM(count)
+            FROM   %s
+            WHERE  cell_x BETWEEN ? AND ?
+              AND  cell_y BETWEEN ? AND ?
+              AND  day BETWEEN ? AND ?
+            GROUP  BY x, y
+            """;
+
+    private static final RowMapper<HeatmapCell> HEATMAP_CELL_MAPPER =
+            (rs, rowNum) -> new HeatmapCell(rs.getInt(1), rs.getInt(2), rs.getLong(3));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param x     the column of the cell at the zoom level of the query
+     * @param y     the row of the cell at the zoom level of the query
+     * @param count the number of entries within the cell
+     */
+    public record HeatmapCell(int x, int y, long count) {
+    }
+
+    /**
+     * Count the entries of the given days again.
+     */
+    @Transactional
+    public void rebuildDays(Collection<LocalDate> days) {
+        for (LocalDate day : days) {
+            jdbcTemplate.update("DELETE FROM location_heatmap_cell WHERE day = ?", day);
+            jdbcTemplate.update(REBUILD_DAY, day, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            jdbcTemplate.update("DELETE FROM location_heatmap_coarse_cell WHERE day = ?", day);
+            jdbcTemplate.update(REBUILD_COARSE_DAY, day);
+        }
+    }
+
+    /**
+     * The cells within a rectangle of zoom level {@value #CELL_ZOOM} cells, aggregated to a lower zoom level.
+     *
+     * @param zoom the zoom level of the returned cells, at most {@value #CELL_ZOOM}
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<HeatmapCell> findCells(int zoom, int minX, int maxX, int minY, int maxY, LocalDate from, LocalDate to) {
+        if (zoom <= COARSE_CELL_ZOOM) {
+            final int shift = COARSE_CELL_ZOOM - zoom;
+            return jdbcTemplate.query(FIND_CELLS.formatted("location_heatmap_coarse_cell"), HEATMAP_CELL_MAPPER,
+                    shift, shift, minX >> COARSE_SHIFT, maxX >> COARSE_SHIFT, minY >> COARSE_SHIFT, maxY >> COARSE_SHIFT, from, to);
+        }
+        final int shift = CELL_ZOOM - zoom;
+        return jdbcTemplate.query(FIND_CELLS.formatted("location_heatmap_cell"), HEATMAP_CELL_MAPPER,
+                shift, shift, minX, maxX, minY, maxY, from, to);
+    }
+}
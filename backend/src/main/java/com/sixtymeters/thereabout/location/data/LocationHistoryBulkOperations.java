@@ -0,0 +1,101 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Ignores or deletes all location history entries of a {@link LocationHistorySelection} without loading the entries,
+ * with one statement per side of the antimeridian, so every statement can use the spatial index on the positions.
+ * JPA isn't involved, managed entities of the same transaction are not updated.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationHistoryBulkOperations {
+
+    private static final String SELECT_DAYS = "SELECT DISTINCT CAST(timestamp AS DATE) FROM location_history_entry WHERE ";
+    private static final String IGNORE = "UPDATE location_history_entry SET ignore_entry = true WHERE ";
+    private static final String DELETE = "DELETE FROM location_history_entry WHERE ";
+    private static final String ACTIVE = " AND ignore_entry = false";
+    private static final String POSITION_WITHIN = "MBRIntersects(LineString(Point(?, ?), Point(?, ?)), position)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param activeOnly only consider entries that aren't ignored yet
+     * @return the days with at least one selected entry
+     */
+    public List<LocalDate> findDays(LocationHistorySelection selection, boolean activeOnly) {
+        final var days = new TreeSet<LocalDate>();
+        for (LocationHistorySelection part : splitAtAntimeridian(selection)) {
+            final var parameters = new ArrayList<>();
+            final var sql = SELECT_DAYS + whereClause(part, parameters) + (activeOnly ? ACTIVE : "");
+            days.addAll(jdbcTemplate.queryForList(sql, LocalDate.class, parameters.toArray()));
+        }
+        return List.copyOf(days);
+    }
+
+    /**
+     * @return the number of entries that have been ignored, entries that were ignored already are not counted
+     */
+    public int ignore(LocationHistorySelection selection) {
+        int ignored = 0;
+        for (LocationHistorySelection part : splitAtAntimeridian(selection)) {
+            final var parameters = new ArrayList<>();
+            ignored += jdbcTemplate.update(IGNORE + whereClause(part, parameters) + ACTIVE, parameters.toArray());
+        }
+        return ignored;
+    }
+
+    /**
+     * @return the number of deleted entries, list memberships of the entries are removed by the database
+     */
+    public int delete(LocationHistorySelection selection) {
+        int deleted = 0;
+        for (LocationHistorySelection part : splitAtAntimeridian(selection)) {
+            final var parameters = new ArrayList<>();
+            deleted += jdbcTemplate.update(DELETE + whereClause(part, parameters), parameters.toArray());
+        }
+        return deleted;
+    }
+
+    // MariaDB doesn't use the R-tree for OR-ed MBRIntersects, the parts of a split box are disjoint
+    private static List<LocationHistorySelection> splitAtAntimeridian(LocationHistorySelection selection) {
+        if (selection.boundingBox() == null) {
+            return List.of(selection);
+        }
+        return selection.boundingBox().splitAtAntimeridian().stream()
+                .map(box -> new LocationHistorySelection(selection.from(), selection.to(), box,
+                        selection.deviceTag(), selection.horizontalAccuracyAbove()))
+                .toList();
+    }
+
+    private static String whereClause(LocationHistorySelection selection, List<Object> parameters) {
+        final var conditions = new ArrayList<String>();
+        conditions.add("timestamp >= ? AND timestamp < ?");
+        parameters.add(selection.from());
+        parameters.add(selection.to());
+        if (selection.boundingBox() != null) {
+            final var box = selection.boundingBox();
+            conditions.add(POSITION_WITHIN);
+            parameters.add(box.west());
+            parameters.add(box.south());
+            parameters.add(box.east());
+            parameters.add(box.north());
+        }
+        if (selection.deviceTag() != null) {
+            conditions.add("device_tag = ?");
+            parameters.add(selection.deviceTag());
+        }
+        if (selection.horizontalAccuracyAbove() != null) {
+            conditions.add("horizontal_accuracy > ?");
+            parameters.add(selection.horizontalAccuracyAbove());
+        }
+        return String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sixtymeters.thereabout.location.data;
+
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes large amounts of location history entries with multi-row INSERT statements.
+ * {@link LocationHistoryEntity} uses IDENTITY ids, so Hibernate can't batch its inserts and would send one
+ * statement per row. Entries written through this class don't get their generated id set.
+ * <p>
+ * Entries that already exist (same timestamp, rounded raw coordinates and device tag, see the {@code dedup_key}
+ * column) are skipped silently, which makes re-importing overlapping exports safe. Only that collision is skipped,
+ * unlike with {@code INSERT IGNORE} rows with values the columns can't hold still fail the statement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationHistoryBulkWriter {
+
+    // 16 parameters per row keeps a full statement well below the 65535 placeholder limit of MariaDB
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_INTO = """
+            INSERT INTO location_history_entry (timestamp, latitude, longitude, horizontal_accuracy, vertical_accuracy,
+                                                altitude, heading, velocity, source, estimated_iso_country_code,
+                                                ignore_entry, device_tag, sensor_source, note, raw_latitude, raw_longitude)
+            VALUES\s""";
+    private static final String ON_DUPLICATE = " ON DUPLICATE KEY UPDATE id = id";
+    // the driver reports matched rows, a skipped duplicate counts like an insert, so the rows are counted instead
+    private static final String COUNT_BETWEEN = "SELECT COUNT(*) FROM location_history_entry WHERE timestamp BETWEEN ? AND ?";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FULL_STATEMENT = insertStatementFor(ROWS_PER_STATEMENT);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all entries that don't exist yet, using as few statements as possible.
+     *
+     * @return the number of inserted rows, duplicates are not counted
+     */
+    @Transactional
+    public int insertAll(List<LocationHistoryEntity> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        final var timestamps = entries.stream().map(LocationHistoryEntity::getTimestamp).toList();
+        final var first = Collections.min(timestamps);
+        final var last = Collections.max(timestamps);
+        // both counts read the snapshot of this transaction, rows committed concurrently are in neither
+        final long before = countBetween(first, last);
+        for (List<LocationHistoryEntity> rows : Lists.partition(entries, ROWS_PER_STATEMENT)) {
+            final var sql = rows.size() == ROWS_PER_STATEMENT ? FULL_STATEMENT : insertStatementFor(rows.size());
+            jdbcTemplate.update(sql, ps -> bindRows(ps, rows));
+        }
+        return Math.toIntExact(countBetween(first, last) - before);
+    }
+
+    private long countBetween(LocalDateTime first, LocalDateTime last) {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(COUNT_BETWEEN, Long.class, first, last));
+    }
+
+    private static String insertStatementFor(int rowCount) {
+        return INSERT_INTO + String.join(", ", Collections.nCopies(rowCount, ROW_PLACEHOLDERS)) + ON_DUPLICATE;
+    }
+
+    private static void bindRows(PreparedStatement ps, List<LocationHistoryEntity> rows) throws SQLException {
+        int index = 1;
+        for (LocationHistoryEntity entry : rows) {
+            ps.setObject(index++, entry.getTimestamp());
+            ps.setDouble(index++, entry.getLatitude());
+            ps.setDouble(index++, entry.getLongitude());
+            ps.setInt(index++, entry.getHorizontalAccuracy());
+            ps.setInt(index++, entry.getVerticalAccuracy());
+            ps.setInt(index++, entry.getAltitude());
+            ps.setInt(index++, entry.getHeading());
+            ps.setInt(index++, entry.getVelocity());
+            ps.setString(index++, entry.getSource() == null ? null : entry.getSource().name());
+            ps.setString(index++, entry.getEstimatedIsoCountryCode());
+            ps.setBoolean(index++, entry.isIgnoreEntry());
+            ps.setString(index++, entry.getDeviceTag());
+            ps.setString(index++, entry.getSensorSource());
+            ps.setString(index++, entry.getNote());
+            ps.setObject(index++, entry.getRawLatitude(), Types.DOUBLE);
+            ps.setObject(index++, entry.getRawLongitude(), Types.DOUBLE);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Walks over location history entries with a forward-only cursor. The driver fetches {@value #FETCH_SIZE} rows at
+ * a time and every entry is handed over before the next row is read, so no range is ever held in memory as a whole.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationHistoryCursor {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_ENTRIES = """
+            SELECT id, timestamp, latitude, longitude, horizontal_accuracy, vertical_accuracy, altitude, heading, velocity,
+                   source, estimated_iso_country_code, note
+            FROM   location_history_entry
+            WHERE  timestamp >= ? AND timestamp < ?
+              AND  ignore_entry = false
+            ORDER  BY timestamp, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param from     inclusive
+     * @param to       exclusive
+     * @param consumer called with every active entry in chronological order, entries are not managed by JPA
+     */
+    public void forEachEntry(LocalDateTime from, LocalDateTime to, Consumer<LocationHistoryEntity> consumer) {
+        jdbcTemplate.query(connection -> {
+            final var ps = connection.prepareStatement(SELECT_ENTRIES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapEntry(rs)));
+    }
+
+    private static LocationHistoryEntity mapEntry(ResultSet rs) throws SQLException {
+        final var source = rs.getString("source");
+        return LocationHistoryEntity.builder()
+                .id(rs.getLong("id"))
+                .timestamp(rs.getObject("timestamp", LocalDateTime.class))
+                .latitude(rs.getDouble("latitude"))
+                .longitude(rs.getDouble("longitude"))
+                .horizontalAccuracy(rs.getInt("horizontal_accuracy"))
+                .verticalAccuracy(rs.getInt("vertical_accuracy"))
+                .altitude(rs.getInt("altitude"))
+                .heading(rs.getInt("heading"))
+                .velocity(rs.getInt("velocity"))
+                .source(source == null ? null : LocationHistorySource.valueOf(source))
+                .estimatedIsoCountryCode(rs.getString("estimated_iso_country_code"))
+                .note(rs.getString("note"))
+                .build();
+    }
+}
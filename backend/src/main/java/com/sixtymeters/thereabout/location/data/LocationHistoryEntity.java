@@ -27,6 +27,13 @@ public class LocationHistoryEntity {
     @Column
     private double longitude;
 
+    // The coordinates as received if they have been smoothed on ingest, the dedup_key is computed from them
+    @Column
+    private Double rawLatitude;
+
+    @Column
+    private Double rawLongitude;
+
     @Column
     private int horizontalAccuracy;
 
@@ -0,0 +1,17 @@
+package com.sixtymeters.thereabout.location.data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The location history entries a bulk operation applies to: all entries of a time range that match every given
+ * criterion. Criteria that are {@code null} don't restrict the selection.
+ *
+ * @param from                    inclusive
+ * @param to                      exclusive
+ * @param boundingBox             entries within the box
+ * @param deviceTag               entries recorded by the device
+ * @param horizontalAccuracyAbove entries with a horizontal accuracy worse (larger) than the given meters
+ */
+public record LocationHistorySelection(LocalDateTime from, LocalDateTime to, BoundingBox boundingBox,
+                                       String deviceTag, Integer horizontalAccuracyAbove) {
+}
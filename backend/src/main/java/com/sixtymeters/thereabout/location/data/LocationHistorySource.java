@@ -2,6 +2,7 @@ package com.sixtymeters.thereabout.location.data;
 
 public enum LocationHistorySource {
     GOOGLE_IMPORT,
+    GOOGLE_TIMELINE_IMPORT,
     THEREABOUT_API,
     THEREABOUT_API_UPDATE
 }
@@ -0,0 +1,12 @@
+package com.sixtymeters.thereabout.location.data;
+
+public enum LocationImportFormat {
+    /**
+     * Records.json from Google Takeout (the former, server-side Location History).
+     */
+    GOOGLE_RECORDS,
+    /**
+     * Timeline.json exported from the on-device Google Maps Timeline.
+     */
+    GOOGLE_TIMELINE
+}
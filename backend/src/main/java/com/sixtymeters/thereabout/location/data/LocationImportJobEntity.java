@@ -0,0 +1,66 @@
+package com.sixtymeters.thereabout.location.data;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint of a location history import, used to resume it after a restart.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "location_import_job")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocationImportJobEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String filePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LocationImportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LocationImportJobStatus status;
+
+    /**
+     * Number of records at the start of the file that have been persisted. Resuming skips them without parsing.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Long recordsCommitted = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long bytesCommitted = 0L;
+
+    @Column(nullable = false)
+    private Long totalBytes;
+
+    private String errorMessage;
+
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+        updatedAt = Instant.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,28 @@
+package com.sixtymeters.thereabout.location.data;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LocationImportJobRepository extends JpaRepository<LocationImportJobEntity, Long> {
+
+    List<LocationImportJobEntity> findAllByStatusIn(Collection<LocationImportJobStatus> statuses);
+
+    /**
+     * Moves the checkpoint forward. Must run in the transaction that persisted the records.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE LocationImportJobEntity j
+        SET j.recordsCommitted = :recordsCommitted, j.bytesCommitted = :bytesCommitted
+        WHERE j.id = :id
+    """)
+    void updateCheckpoint(Long id, long recordsCommitted, long bytesCommitted);
+}
@@ -0,0 +1,15 @@
+package com.sixtymeters.thereabout.location.data;
+
+public enum LocationImportJobStatus {
+    /**
+     * Waiting for a free import slot, started on the next start if the application stops before.
+     */
+    QUEUED,
+    RUNNING,
+    /**
+     * Stopped by an error that isn't caused by the file itself (e.g. the database went away), resumed on the next start.
+     */
+    INTERRUPTED,
+    FINISHED,
+    FAILED
+}
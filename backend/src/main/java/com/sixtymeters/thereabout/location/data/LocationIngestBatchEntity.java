@@ -0,0 +1,38 @@
+package com.sixtymeters.thereabout.location.data;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A batch of locations received from a tracking app, remembered for a while to recognise retries.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "location_ingest_batch")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocationIngestBatchEntity {
+
+    /**
+     * Hex encoded SHA-256 of the idempotency key or of the batch content.
+     */
+    @Id
+    private String batchKey;
+
+    private int accepted;
+
+    private int duplicates;
+
+    private int rejected;
+
+    private int ignored;
+
+    private int dropped;
+
+    @Column(nullable = false)
+    private Instant receivedAt;
+}
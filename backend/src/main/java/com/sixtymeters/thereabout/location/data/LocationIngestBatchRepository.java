@@ -0,0 +1,27 @@
+package com.sixtymeters.thereabout.location.data;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface LocationIngestBatchRepository extends JpaRepository<LocationIngestBatchEntity, String> {
+
+    /**
+     * Reads the batch with a write lock. If it doesn't exist yet, a concurrent delivery of the same batch waits on the
+     * lock once this transaction inserted it, until it committed.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LocationIngestBatchEntity b WHERE b.batchKey = :batchKey")
+    Optional<LocationIngestBatchEntity> findByIdForUpdate(String batchKey);
+
+    @Modifying
+    @Query("DELETE FROM LocationIngestBatchEntity b WHERE b.receivedAt < :cutoff")
+    int deleteAllReceivedBefore(Instant cutoff);
+}
@@ -0,0 +1,43 @@
+package com.sixtymeters.thereabout.location.data;
+
+import java.util.Collection;
+
+/**
+ * The coordinates of a range of location history in chronological order, kept in primitive arrays so that a track
+ * of millions of points stays small enough to simplify in memory.
+ */
+public record LocationTrack(double[] latitudes, double[] longitudes) {
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    /**
+     * @param indexes the points to keep, in ascending order
+     */
+    public LocationTrack select(int[] indexes) {
+        final var selectedLatitudes = new double[indexes.length];
+        final var selectedLongitudes = new double[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            selectedLatitudes[i] = latitudes[indexes[i]];
+            selectedLongitudes[i] = longitudes[indexes[i]];
+        }
+        return new LocationTrack(selectedLatitudes, selectedLongitudes);
+    }
+
+    /**
+     * @return the tracks one after the other
+     */
+    public static LocationTrack join(Collection<LocationTrack> tracks) {
+        final int size = tracks.stream().mapToInt(LocationTrack::size).sum();
+        final var latitudes = new double[size];
+        final var longitudes = new double[size];
+        int index = 0;
+        for (LocationTrack track : tracks) {
+            System.arraycopy(track.latitudes(), 0, latitudes, index, track.size());
+            System.arraycopy(track.longitudes(), 0, longitudes, index, track.size());
+            index += track.size();
+        }
+        return new LocationTrack(latitudes, longitudes);
+    }
+}
@@ -0,0 +1,123 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Stores the simplified tracks of {@code location_track_pyramid}, see {@code LocationTrackPyramid}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationTrackPyramidRepository {
+
+    private static final int BYTES_PER_POINT = 2 * Double.BYTES;
+
+    private static final String SELECT_DAYS_WITHOUT_PYRAMID = """
+            SELECT s.day
+            FROM   location_day_summary s
+            WHERE  NOT EXISTS (SELECT 1 FROM location_track_pyramid p WHERE p.level = 0 AND p.day = s.day)
+                   %s
+            ORDER  BY s.day
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The size of each level within a range of days.
+     *
+     * @param points       the number of points stored for the range on this level
+     * @param sourcePoints the number of points of the unsimplified tracks
+     */
+    public record LevelSize(int level, long points, long sourcePoints) {
+    }
+
+    /**
+     * Replace all levels of a day, the level of each track is its position in the list. An empty list removes the day.
+     */
+    @Transactional
+    public void replaceDay(LocalDate day, int sourcePoints, List<LocationTrack> levels) {
+        jdbcTemplate.update("DELETE FROM location_track_pyramid WHERE day = ?", day);
+        for (int level = 0; level < levels.size(); level++) {
+            final var track = levels.get(level);
+            jdbcTemplate.update("""
+                            INSERT INTO location_track_pyramid (level, day, point_count, source_points, coordinates)
+                            VALUES (?, ?, ?, ?, ?)""",
+                    level, day, track.size(), sourcePoints, encode(track));
+        }
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<LevelSize> findLevelSizes(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("""
+                        SELECT level, SUM(point_count), SUM(source_points)
+                        FROM   location_track_pyramid
+                        WHERE  day BETWEEN ? AND ?
+                        GROUP  BY level
+                        ORDER  BY level""",
+                (rs, rowNum) -> new LevelSize(rs.getInt(1), rs.getLong(2), rs.getLong(3)), from, to);
+    }
+
+    /**
+     * The track of every day within a range that has one on the level.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public SortedMap<LocalDate, LocationTrack> readLevelDays(int level, LocalDate from, LocalDate to) {
+        final var days = new TreeMap<LocalDate, LocationTrack>();
+        jdbcTemplate.query("SELECT day, coordinates FROM location_track_pyramid WHERE level = ? AND day BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> days.put(rs.getObject(1, LocalDate.class), decode(rs.getBytes(2))), level, from, to);
+        return days;
+    }
+
+    /**
+     * Days with active location history entries that have no pyramid yet, e.g. because they were written before the
+     * pyramid existed. The days are taken from {@code location_day_summary}, which has a row per such day.
+     */
+    public List<LocalDate> findDaysWithoutPyramid() {
+        return jdbcTemplate.queryForList(SELECT_DAYS_WITHOUT_PYRAMID.formatted(""), LocalDate.class);
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   inclusive
+     * @see #findDaysWithoutPyramid()
+     */
+    public List<LocalDate> findDaysWithoutPyramid(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForList(SELECT_DAYS_WITHOUT_PYRAMID.formatted("AND s.day BETWEEN ? AND ?"),
+                LocalDate.class, from, to);
+    }
+
+    private static LocationTrack decode(byte[] coordinates) {
+        final var buffer = ByteBuffer.wrap(coordinates);
+        final int size = coordinates.length / BYTES_PER_POINT;
+        final var latitudes = new double[size];
+        final var longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = buffer.getDouble();
+            longitudes[i] = buffer.getDouble();
+        }
+        return new LocationTrack(latitudes, longitudes);
+    }
+
+    private static byte[] encode(LocationTrack track) {
+        final var buffer = ByteBuffer.allocate(track.size() * BYTES_PER_POINT);
+        for (int i = 0; i < track.size(); i++) {
+            buffer.putDouble(track.latitudes()[i]);
+            buffer.putDouble(track.longitudes()[i]);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,158 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Reads only the coordinates of location history entries, row by row, without creating an entity per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationTrackReader {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Consecutive points closer than this (about 1m) are a device standing still and don't change the shape
+    private static final double STATIONARY_DEGREES = 0.00001;
+
+    private static final String SELECT_TRACK = """
+            SELECT latitude, longitude
+            FROM   location_history_entry
+            WHERE  timestamp >= ? AND timestamp < ?
+              AND  ignore_entry = false
+            ORDER  BY timestamp, id
+            """;
+
+    // the positions are indexed in an R-tree, MBRIntersects also keeps points on the edges of the box
+    private static final String SELECT_WITHIN_BOX = """
+            SELECT latitude, longitude, timestamp, id
+            FROM   location_history_entry
+            WHERE  %s
+              AND  timestamp >= ? AND timestamp < ?
+              AND  ignore_entry = false
+            """;
+    // MariaDB doesn't use the R-tree for OR-ed MBRIntersects, so each side of the antimeridian gets its own select
+    private static final String SELECT_TRACK_WITHIN = """
+            SELECT latitude, longitude
+            FROM   (%s) within_box
+            ORDER  BY timestamp, id
+            """;
+    private static final String POSITION_WITHIN = "MBRIntersects(LineString(Point(?, ?), Point(?, ?)), position)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Consumes the points of a track one at a time, in chronological order.
+     */
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double latitude, double longitude);
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    public LocationTrack readTrack(LocalDateTime from, LocalDateTime to) {
+        final var collector = new TrackCollector();
+        readTrack(from, to, collector);
+        return collector.toTrack();
+    }
+
+    /**
+     * Hands the track to the consumer while the rows are read, the track is never held in memory as a whole.
+     *
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    public void readTrack(LocalDateTime from, LocalDateTime to, PointConsumer consumer) {
+        final var movements = new MovementFilter(consumer);
+        jdbcTemplate.query(connection -> {
+            final var ps = connection.prepareStatement(SELECT_TRACK);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> movements.accept(rs.getDouble(1), rs.getDouble(2)));
+    }
+
+    /**
+     * Hands the part of the track between {@code from} (inclusive) and {@code to} (exclusive) that lies within the box
+     * to the consumer while the rows are read, like {@link #readTrack(LocalDateTime, LocalDateTime, PointConsumer)}.
+     */
+    public void readTrackWithin(BoundingBox boundingBox, LocalDateTime from, LocalDateTime to, PointConsumer consumer) {
+        final var boxes = boundingBox.splitAtAntimeridian();
+        final var sql = SELECT_TRACK_WITHIN.formatted(String.join(" UNION ALL ",
+                Collections.nCopies(boxes.size(), SELECT_WITHIN_BOX.formatted(POSITION_WITHIN))));
+        final var movements = new MovementFilter(consumer);
+        jdbcTemplate.query(connection -> {
+            final var ps = connection.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            int parameter = 1;
+            for (BoundingBox box : boxes) {
+                ps.setDouble(parameter++, box.west());
+                ps.setDouble(parameter++, box.south());
+                ps.setDouble(parameter++, box.east());
+                ps.setDouble(parameter++, box.north());
+                ps.setObject(parameter++, from);
+                ps.setObject(parameter++, to);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> movements.accept(rs.getDouble(1), rs.getDouble(2)));
+    }
+
+    /**
+     * Passes on only the points that moved away from the previous one.
+     */
+    private static class MovementFilter implements PointConsumer {
+        private final PointConsumer consumer;
+        private boolean hasPrevious;
+        private double previousLatitude;
+        private double previousLongitude;
+
+        private MovementFilter(PointConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(double latitude, double longitude) {
+            if (hasPrevious
+                    && Math.abs(previousLatitude - latitude) < STATIONARY_DEGREES
+                    && Math.abs(previousLongitude - longitude) < STATIONARY_DEGREES) {
+                return;
+            }
+            hasPrevious = true;
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+            consumer.accept(latitude, longitude);
+        }
+    }
+
+    private static class TrackCollector implements PointConsumer {
+        private double[] latitudes = new double[INITIAL_CAPACITY];
+        private double[] longitudes = new double[INITIAL_CAPACITY];
+        private int size;
+
+        @Override
+        public void accept(double latitude, double longitude) {
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        private LocationTrack toTrack() {
+            return new LocationTrack(Arrays.copyOf(latitudes, size), Arrays.copyOf(longitudes, size));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.sixtymeters.thereabout.location.data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A stay at one place and the movement that led to it.
+ *
+ * @param latitude               the centroid of the entries of the stay
+ * @param arrival                the timestamp of the first entry of the stay
+ * @param departure              the timestamp of the last entry of the stay
+ * @param movementStart          the departure of the previous visit, or the first entry if there is none
+ * @param movementPointCount     the number of entries between the previous visit and this one
+ * @param movementDistanceMeters the great-circle distance from the previous visit along those entries
+ */
+public record LocationVisit(double latitude,
+                            double longitude,
+                            LocalDateTime arrival,
+                            LocalDateTime departure,
+                            int pointCount,
+                            LocalDateTime movementStart,
+                            int movementPointCount,
+                            double movementDistanceMeters) {
+
+    public Duration dwell() {
+        return Duration.between(arrival, departure);
+    }
+}
@@ -0,0 +1,109 @@
+package com.sixtymeters.thereabout.location.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores {@link LocationVisit}s in {@code location_visit} and how far the entries have been processed in
+ * {@code location_visit_watermark}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationVisitRepository {
+
+    private static final int WATERMARK_ID = 1;
+
+    private static final String SELECT_VISITS = """
+            SELECT latitude, longitude, arrival, departure, point_count, movement_start, movement_point_count,
+                   movement_distance_meters
+            FROM   location_visit
+            """;
+
+    private static final String INSERT_VISIT = """
+            INSERT INTO location_visit (latitude, longitude, arrival, departure, point_count, movement_start,
+                                        movement_point_count, movement_distance_meters)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_WATERMARK = """
+            INSERT INTO location_visit_watermark (id, processed_until)
+            VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE processed_until = VALUES(processed_until)
+            """;
+
+    private static final RowMapper<LocationVisit> VISIT_MAPPER = (rs, rowNum) -> new LocationVisit(
+            rs.getDouble("latitude"),
+            rs.getDouble("longitude"),
+            rs.getObject("arrival", LocalDateTime.class),
+            rs.getObject("departure", LocalDateTime.class),
+            rs.getInt("point_count"),
+            rs.getObject("movement_start", LocalDateTime.class),
+            rs.getInt("movement_point_count"),
+            rs.getDouble("movement_distance_meters"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<LocalDateTime> findWatermark() {
+        return jdbcTemplate.query("SELECT processed_until FROM location_visit_watermark WHERE id = ?",
+                (rs, rowNum) -> rs.getObject(1, LocalDateTime.class), WATERMARK_ID).stream().findFirst();
+    }
+
+    public Optional<LocationVisit> findLastVisit() {
+        return jdbcTemplate.query(SELECT_VISITS + "ORDER BY departure DESC, id DESC LIMIT 1", VISIT_MAPPER)
+                .stream().findFirst();
+    }
+
+    /**
+     * The visits that overlap a time range, in chronological order.
+     *
+     * @param from inclusive
+     * @param to   exclusive
+     */
+    public List<LocationVisit> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_VISITS + "WHERE arrival < ? AND departure >= ? ORDER BY arrival, id",
+                VISIT_MAPPER, to, from);
+    }
+
+    /**
+     * Store visits detected after the watermark and move the watermark to the departure of the last one.
+     */
+    @Transactional
+    public void append(List<LocationVisit> visits) {
+        jdbcTemplate.batchUpdate(INSERT_VISIT, visits, visits.size(), (ps, visit) -> {
+            ps.setDouble(1, visit.latitude());
+            ps.setDouble(2, visit.longitude());
+            ps.setObject(3, visit.arrival());
+            ps.setObject(4, visit.departure());
+            ps.setInt(5, visit.pointCount());
+            ps.setObject(6, visit.movementStart());
+            ps.setInt(7, visit.movementPointCount());
+            ps.setDouble(8, visit.movementDistanceMeters());
+        });
+        jdbcTemplate.update(UPDATE_WATERMARK, WATERMARK_ID, visits.getLast().departure());
+    }
+
+    /**
+     * Forget the visits that end at or after {@code from} and move the watermark back to the last remaining one, so
+     * the entries from there on are processed again.
+     */
+    @Transactional
+    public void rewindTo(LocalDateTime from) {
+        if (jdbcTemplate.update("DELETE FROM location_visit WHERE departure >= ?", from) == 0) {
+            return;
+        }
+        final var lastDeparture = jdbcTemplate.queryForObject("SELECT MAX(departure) FROM location_visit",
+                LocalDateTime.class);
+        if (lastDeparture == null) {
+            jdbcTemplate.update("DELETE FROM location_visit_watermark WHERE id = ?", WATERMARK_ID);
+        } else {
+            jdbcTemplate.update(UPDATE_WATERMARK, WATERMARK_ID, lastDeparture);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sixtymeters.thereabout.location.data;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "trip_proposals")
+@Builder
+@AllArgsConstructor
+@RequiredArgsConstructor
+public class TripProposalEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate start;
+
+    @Column(nullable = false)
+    private LocalDate end;
+
+    /**
+     * The ISO codes of the visited countries, comma separated in alphabetical order.
+     */
+    @Column
+    private String countries;
+
+    @Column(nullable = false)
+    private double distanceMeters;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TripProposalStatus status;
+}
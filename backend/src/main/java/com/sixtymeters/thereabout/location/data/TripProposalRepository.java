@@ -0,0 +1,19 @@
+package com.sixtymeters.thereabout.location.data;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TripProposalRepository extends JpaRepository<TripProposalEntity, Long> {
+
+    List<TripProposalEntity> findAllByStatusOrderByStart(TripProposalStatus status);
+
+    List<TripProposalEntity> findAllByEndGreaterThanEqual(LocalDate end);
+
+    @Modifying
+    @Query("delete from TripProposalEntity p where p.status = ?1 and p.end >= ?2")
+    void deleteAllByStatusAndEndGreaterThanEqual(TripProposalStatus status, LocalDate end);
+}
@@ -0,0 +1,10 @@
+package com.sixtymeters.thereabout.location.data;
+
+public enum TripProposalStatus {
+    PROPOSED,
+    /**
+     * Turned into a trip, the trip may since have been changed or deleted.
+     */
+    ACCEPTED,
+    DISMISSED
+}
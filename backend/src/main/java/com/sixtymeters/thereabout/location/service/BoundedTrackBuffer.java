@@ -0,0 +1,64 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import com.sixtymeters.thereabout.location.data.LocationTrackReader;
+
+import java.util.Arrays;
+
+/**
+ * Collects a streamed track in a buffer of fixed capacity. Whenever the buffer is full, the points collected so far
+ * are simplified to half of it, so a track of any length is reduced with bounded memory. Tracks that fit into the
+ * buffer end up exactly as if they had been simplified as a whole.
+ */
+final class BoundedTrackBuffer implements LocationTrackReader.PointConsumer {
+
+    static final int MINIMUM_CAPACITY = 200_000;
+
+    private final TrackSimplifier trackSimplifier;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private int size;
+
+    /**
+     * A buffer for simplifying a track of unknown length to {@code maxPoints}: {@value #MINIMUM_CAPACITY} points, or
+     * twice the budget if that is larger.
+     */
+    static BoundedTrackBuffer forBudget(TrackSimplifier trackSimplifier, int maxPoints) {
+        return new BoundedTrackBuffer(trackSimplifier,
+                (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MINIMUM_CAPACITY, 2L * maxPoints)));
+    }
+
+    BoundedTrackBuffer(TrackSimplifier trackSimplifier, int capacity) {
+        this.trackSimplifier = trackSimplifier;
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+    }
+
+    @Override
+    public void accept(double latitude, double longitude) {
+        if (size == latitudes.length) {
+            compact();
+        }
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+    }
+
+    private void compact() {
+        final var kept = trackSimplifier.simplify(new LocationTrack(latitudes, longitudes), latitudes.length / 2);
+        // the indexes are ascending, every point moves towards the front or stays
+        for (int i = 0; i < kept.length; i++) {
+            latitudes[i] = latitudes[kept[i]];
+            longitudes[i] = longitudes[kept[i]];
+        }
+        size = kept.length;
+    }
+
+    /**
+     * @return the collected track simplified to at most {@code maxPoints} points
+     */
+    LocationTrack toTrack(int maxPoints) {
+        final var track = new LocationTrack(Arrays.copyOf(latitudes, size), Arrays.copyOf(longitudes, size));
+        return track.select(trackSimplifier.simplify(track, maxPoints));
+    }
+}
@@ -0,0 +1,111 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Component;
+import uk.recurse.geocoding.reverse.Country;
+import uk.recurse.geocoding.reverse.ReverseGeocoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves coordinates to countries. Holds the only {@link ReverseGeocoder} of the application, so the country
+ * polygons are loaded once.
+ * <p>
+ * Lookups are quantized to a grid of {@value #CELL_SIZE_DEGREES}° cells (roughly 500m). Each thread remembers its
+ * last cell, which answers most lookups of a track without touching the cache at all, and a bounded cache keyed by
+ * cell answers revisits. Points within one cell of a border may therefore get the country of their neighbour cell.
+ */
+@Component
+public class CountryResolver {
+
+    public static final String CACHE_NAME = "thereabout.country.resolution";
+    private static final double CELL_SIZE_DEGREES = 0.005;
+    private static final long MAX_CACHED_CELLS = 200_000;
+
+    private final ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
+    private final ThreadLocal<ResolvedCell> lastResolvedCell = new ThreadLocal<>();
+    private final Cache<Long, Optional<Country>> cellCache;
+    private final Map<String, Country> countriesByIso;
+    private final Counter sameCellHits;
+    private final Counter lookups;
+
+    public CountryResolver(MeterRegistry meterRegistry) {
+        final Cache<Long, Optional<Country>> cache = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_CELLS)
+                .recordStats()
+                .build();
+        this.cellCache = GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        // the first country of an ISO code wins, as with a search through countries()
+        this.countriesByIso = reverseGeocoder.countries()
+                .filter(country -> country.iso() != null)
+                .collect(Collectors.toUnmodifiableMap(Country::iso, Function.identity(), (first, second) -> first));
+        this.sameCellHits = Counter.builder(CACHE_NAME + ".shortcut")
+                .description("Lookups answered by the previous lookup of the same thread")
+                .register(meterRegistry);
+        this.lookups = Counter.builder(CACHE_NAME + ".lookups")
+                .description("All country lookups, regardless of how they were answered")
+                .register(meterRegistry);
+    }
+
+    public Optional<Country> resolve(double latitude, double longitude) {
+        lookups.increment();
+        final long cell = cellOf(latitude, longitude);
+
+        final var previous = lastResolvedCell.get();
+        if (previous != null && previous.cell() == cell) {
+            sameCellHits.increment();
+            return previous.country();
+        }
+
+        var country = cellCache.getIfPresent(cell);
+        if (country == null) {
+            country = reverseGeocoder.getCountry(latitude, longitude);
+            cellCache.put(cell, country);
+        }
+        lastResolvedCell.set(new ResolvedCell(cell, country));
+        return country;
+    }
+
+    public String resolveIsoCode(double latitude, double longitude) {
+        return resolve(latitude, longitude).map(Country::iso).orElse(null);
+    }
+
+    public Stream<Country> countries() {
+        return reverseGeocoder.countries();
+    }
+
+    /**
+     * The country of an ISO 3166-1 alpha-2 code, without a search through all countries.
+     */
+    public Optional<Country> countryOfIso(String iso) {
+        return iso == null ? Optional.empty() : Optional.ofNullable(countriesByIso.get(iso));
+    }
+
+    /**
+     * @return the share of lookups that didn't need a polygon lookup, between 0 and 1
+     */
+    public double hitRate() {
+        final double total = lookups.count();
+        if (total == 0) {
+            return 0;
+        }
+        return (sameCellHits.count() + cellCache.stats().hitCount()) / total;
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        final long latitudeCell = (long) Math.floor((latitude + 90) / CELL_SIZE_DEGREES);
+        final long longitudeCell = (long) Math.floor((longitude + 180) / CELL_SIZE_DEGREES);
+        return latitudeCell << 32 | longitudeCell;
+    }
+
+    private record ResolvedCell(long cell, Optional<Country> country) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.sixtymeters.thereabout.location.service;
+
+/**
+ * Outcome of storing a batch of entries.
+ *
+ * @param inserted   entries that have been stored, ignored ones included
+ * @param duplicates entries that were stored already
+ * @param filtered   what the {@link LocationIngestFilter} ignored or dropped before storing
+ */
+public record LocationBatchResult(int inserted, int duplicates, LocationIngestFilterReport filtered) {
+}
@@ -0,0 +1,8 @@
+package com.sixtymeters.thereabout.location.service;
+
+/**
+ * @param affectedEntries the number of entries that have been ignored or deleted
+ * @param affectedDays    the number of days these entries belong to
+ */
+public record LocationBulkResult(int affectedEntries, int affectedDays) {
+}
@@ -0,0 +1,22 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stamps days with changed entries with a new version, in the transaction that changes them.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationDataVersionListener {
+
+    private final DataVersionService dataVersionService;
+
+    @EventListener
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        dataVersionService.touch(DataDomain.LOCATION, event.days());
+    }
+}
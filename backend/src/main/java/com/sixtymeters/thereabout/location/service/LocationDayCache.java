@@ -0,0 +1,98 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sixtymeters.thereabout.location.data.LocationHistoryCursor;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of whole days of location history for the short ranges the map and trip views open over and
+ * over. Days are kept as {@link LocationDayTrack} and evicted least recently used first once the memory budget is
+ * reached.
+ * <p>
+ * Changed days are dropped after the writing transaction committed. A day read while a change was in flight is
+ * handed out but not cached, and reads inside a transaction always go to the database, since they may see
+ * uncommitted entries.
+ */
+@Slf4j
+@Service
+public class LocationDayCache {
+
+    private final LocationHistoryCursor locationHistoryCursor;
+    private final int maxRangeDays;
+    private final Cache<LocalDate, LocationDayTrack> days;
+    private final AtomicLong generation = new AtomicLong();
+
+    public LocationDayCache(LocationHistoryCursor locationHistoryCursor, LocationDayCacheProperties properties) {
+        this.locationHistoryCursor = locationHistoryCursor;
+        this.maxRangeDays = properties.getMaxRangeDays();
+        this.days = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getMemoryBudget().toBytes())
+                .weigher((LocalDate day, LocationDayTrack track) -> track.sizeInBytes())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Whether {@link #getLocationHistory} should be used for a range, false for long ranges and within transactions.
+     */
+    public boolean isCacheable(LocalDate from, LocalDate to) {
+        return !from.isAfter(to)
+                && ChronoUnit.DAYS.between(from, to) < maxRangeDays
+                && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * All active entries from the start of {@code from} to the end of {@code to} in chronological order. The entities
+     * are new, detached copies on every call.
+     */
+    public List<LocationHistoryEntity> getLocationHistory(LocalDate from, LocalDate to) {
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        for (var day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            entries.addAll(getDay(day).toEntities());
+        }
+        return entries;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        synchronized (days) {
+            generation.incrementAndGet();
+            days.invalidateAll(event.days());
+        }
+    }
+
+    double hitRate() {
+        return days.stats().hitRate();
+    }
+
+    private LocationDayTrack getDay(LocalDate day) {
+        final var cached = days.getIfPresent(day);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long generationBeforeRead = generation.get();
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        locationHistoryCursor.forEachEntry(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), entries::add);
+        final var track = new LocationDayTrack(entries);
+        synchronized (days) {
+            // an invalidation during the read may have come too early to drop what was just read
+            if (generation.get() == generationBeforeRead) {
+                days.put(day, track);
+            }
+        }
+        log.debug("Loaded %d entries of %s into the day cache".formatted(track.size(), day));
+        return track;
+    }
+}
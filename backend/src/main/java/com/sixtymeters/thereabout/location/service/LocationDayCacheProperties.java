@@ -0,0 +1,27 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits of the in-memory cache of recently read days of location history.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thereabout.location.day-cache")
+public class LocationDayCacheProperties {
+
+    /**
+     * Heap the cached days may use together. The least recently read days are evicted first, zero disables the cache.
+     */
+    private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+    /**
+     * Ranges of up to this many days are served from the cache, longer ranges are read from the database directly.
+     */
+    private int maxRangeDays = 7;
+}
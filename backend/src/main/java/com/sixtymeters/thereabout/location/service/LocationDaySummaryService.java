@@ -0,0 +1,34 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationDaySummary;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Serves the per-day aggregates of the location history. They are rebuilt in the transaction that changes the
+ * entries of a day, so they are never behind the entries.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationDaySummaryService {
+
+    private final LocationDaySummaryRepository locationDaySummaryRepository;
+
+    @EventListener
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        locationDaySummaryRepository.rebuildDays(event.days());
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<LocationDaySummary> getDaySummaries(LocalDate from, LocalDate to) {
+        return locationDaySummaryRepository.findByDayBetween(from, to);
+    }
+}
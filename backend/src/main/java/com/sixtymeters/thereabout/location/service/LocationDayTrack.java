@@ -0,0 +1,126 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entries of one day packed into parallel primitive arrays, a fraction of the size of the entities and without
+ * per-entry objects for the garbage collector to trace. Entities are only created again when the day is read.
+ */
+final class LocationDayTrack {
+
+    private static final LocationHistorySource[] SOURCES = LocationHistorySource.values();
+    private static final byte NO_SOURCE = -1;
+    private static final long ARRAY_OVERHEAD_BYTES = 16;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+
+    private final long[] ids;
+    // DATETIME(6) has microseconds, milliseconds would lose precision
+    private final long[] epochMicros;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] horizontalAccuracies;
+    private final int[] verticalAccuracies;
+    private final int[] altitudes;
+    private final int[] headings;
+    private final int[] velocities;
+    private final byte[] sources;
+    private final String[] countryCodes;
+    private final String[] notes;
+    private final int sizeInBytes;
+
+    LocationDayTrack(List<LocationHistoryEntity> entries) {
+        final int size = entries.size();
+        ids = new long[size];
+        epochMicros = new long[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        horizontalAccuracies = new int[size];
+        verticalAccuracies = new int[size];
+        altitudes = new int[size];
+        headings = new int[size];
+        velocities = new int[size];
+        sources = new byte[size];
+        countryCodes = new String[size];
+        notes = new String[size];
+
+        long stringBytes = 0;
+        for (int i = 0; i < size; i++) {
+            final var entry = entries.get(i);
+            ids[i] = entry.getId();
+            epochMicros[i] = toEpochMicros(entry.getTimestamp());
+            latitudes[i] = entry.getLatitude();
+            longitudes[i] = entry.getLongitude();
+            horizontalAccuracies[i] = entry.getHorizontalAccuracy();
+            verticalAccuracies[i] = entry.getVerticalAccuracy();
+            altitudes[i] = entry.getAltitude();
+            headings[i] = entry.getHeading();
+            velocities[i] = entry.getVelocity();
+            sources[i] = entry.getSource() == null ? NO_SOURCE : (byte) entry.getSource().ordinal();
+            // most entries of a day are in the same country, keep one instance per run
+            countryCodes[i] = i > 0 && entry.getEstimatedIsoCountryCode() != null
+                    && entry.getEstimatedIsoCountryCode().equals(countryCodes[i - 1])
+                    ? countryCodes[i - 1] : entry.getEstimatedIsoCountryCode();
+            notes[i] = entry.getNote();
+            if (countryCodes[i] != null && (i == 0 || countryCodes[i] != countryCodes[i - 1])) {
+                stringBytes += STRING_OVERHEAD_BYTES + countryCodes[i].length();
+            }
+            if (notes[i] != null) {
+                stringBytes += STRING_OVERHEAD_BYTES + notes[i].length();
+            }
+        }
+        final long arrayBytes = 12 * ARRAY_OVERHEAD_BYTES
+                + (long) size * (4 * Long.BYTES + 5 * Integer.BYTES + 1 + 2 * 4);
+        sizeInBytes = (int) Math.min(Integer.MAX_VALUE, arrayBytes + stringBytes);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * An estimate of the heap used by the arrays and strings of the day.
+     */
+    int sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * New, detached entities of all entries in chronological order.
+     */
+    List<LocationHistoryEntity> toEntities() {
+        final var entities = new ArrayList<LocationHistoryEntity>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            entities.add(LocationHistoryEntity.builder()
+                    .id(ids[i])
+                    .timestamp(fromEpochMicros(epochMicros[i]))
+                    .latitude(latitudes[i])
+                    .longitude(longitudes[i])
+                    .horizontalAccuracy(horizontalAccuracies[i])
+                    .verticalAccuracy(verticalAccuracies[i])
+                    .altitude(altitudes[i])
+                    .heading(headings[i])
+                    .velocity(velocities[i])
+                    .source(sources[i] == NO_SOURCE ? null : SOURCES[sources[i]])
+                    .estimatedIsoCountryCode(countryCodes[i])
+                    .note(notes[i])
+                    .build());
+        }
+        return entities;
+    }
+
+    private static long toEpochMicros(LocalDateTime timestamp) {
+        final var instant = timestamp.toInstant(ZoneOffset.UTC);
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static LocalDateTime fromEpochMicros(long epochMicros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L),
+                (int) Math.floorMod(epochMicros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
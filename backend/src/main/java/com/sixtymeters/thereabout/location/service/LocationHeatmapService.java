@@ -0,0 +1,62 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHeatmapRepository;
+import com.sixtymeters.thereabout.location.data.LocationHeatmapRepository.HeatmapCell;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.sixtymeters.thereabout.location.data.LocationHeatmapRepository.CELL_ZOOM;
+
+/**
+ * Serves heatmap tiles from the per-day cell counts, which are updated in the transaction that changes the entries.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationHeatmapService {
+
+    // 2^8 = 256 cells per tile side, about one cell per pixel of a 256px map tile
+    private static final int CELL_ZOOM_BELOW_TILE = 8;
+
+    private final LocationHeatmapRepository locationHeatmapRepository;
+
+    /**
+     * A heatmap cell with the coordinates of its center.
+     */
+    public record HeatmapPoint(double latitude, double longitude, long count) {
+    }
+
+    @EventListener
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        locationHeatmapRepository.rebuildDays(event.days());
+    }
+
+    /**
+     * The cells of a Web Mercator tile that contain at least one entry of the date range.
+     */
+    public List<HeatmapPoint> getTile(int z, int x, int y, LocalDate from, LocalDate to) {
+        if (z < 0 || z > CELL_ZOOM || x < 0 || y < 0 || x >= 1 << z || y >= 1 << z) {
+            throw new ThereaboutException(HttpStatus.BAD_REQUEST, "%d/%d/%d is not a valid tile".formatted(z, x, y));
+        }
+        final int cellZoom = Math.min(z + CELL_ZOOM_BELOW_TILE, CELL_ZOOM);
+        final int tileShift = CELL_ZOOM - z;
+        final int minX = x << tileShift;
+        final int minY = y << tileShift;
+        return locationHeatmapRepository.findCells(cellZoom, minX, minX + (1 << tileShift) - 1, minY, minY + (1 << tileShift) - 1, from, to)
+                .stream()
+                .map(cell -> toPoint(cell, cellZoom))
+                .toList();
+    }
+
+    private static HeatmapPoint toPoint(HeatmapCell cell, int zoom) {
+        final double cells = 1 << zoom;
+        final double longitude = (cell.x() + 0.5) / cells * 360 - 180;
+        final double latitude = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * (cell.y() + 0.5) / cells))));
+        return new HeatmapPoint(latitude, longitude, cell.count());
+    }
+}
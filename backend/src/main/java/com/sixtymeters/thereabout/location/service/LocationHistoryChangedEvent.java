@@ -0,0 +1,23 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published whenever location history entries are inserted, updated or deleted. Data derived from the location
+ * history is kept per day, listeners rebuild the days of the event.
+ *
+ * @param days the days whose entries changed
+ */
+public record LocationHistoryChangedEvent(Set<LocalDate> days) {
+
+    public static LocationHistoryChangedEvent ofEntries(Collection<LocationHistoryEntity> entries) {
+        return new LocationHistoryChangedEvent(entries.stream()
+                .map(entry -> entry.getTimestamp().toLocalDate())
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+}
@@ -1,82 +1,204 @@
 package com.sixtymeters.thereabout.location.service;
 
-import com.google.common.collect.Lists;
+import com.google.common.base.Ascii;
 import com.sixtymeters.thereabout.client.service.ImportProgressService;
-import com.sixtymeters.thereabout.location.service.importer.GoogleLocationHistoryImporter;
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.service.importer.LocationImportPipeline;
+import com.sixtymeters.thereabout.location.data.BoundingBox;
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkOperations;
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkWriter;
 import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
 import com.sixtymeters.thereabout.location.data.LocationHistoryRepository;
+import com.sixtymeters.thereabout.location.data.LocationHistorySelection;
 import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
+import com.sixtymeters.thereabout.location.data.LocationImportJobEntity;
+import com.sixtymeters.thereabout.location.data.LocationImportJobRepository;
+import com.sixtymeters.thereabout.location.data.LocationImportJobStatus;
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import com.sixtymeters.thereabout.location.data.LocationTrackReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import uk.recurse.geocoding.reverse.Country;
-import uk.recurse.geocoding.reverse.ReverseGeocoder;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LocationHistoryService {
-    private final GoogleLocationHistoryImporter locationHistoryImporter;
+    private final LocationImportPipeline locationImportPipeline;
     private final LocationHistoryRepository locationHistoryRepository;
+    private final LocationHistoryBulkWriter locationHistoryBulkWriter;
+    private final LocationHistoryBulkOperations locationHistoryBulkOperations;
     private final ImportProgressService importProgressService;
-
-    private final ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
-
-    private final static int CHUNK_SIZE = 10000;
+    private final CountryResolver countryResolver;
+    private final LocationImportJobRepository locationImportJobRepository;
+    private final LocationTrackPyramid locationTrackPyramid;
+    private final LocationTrackReader locationTrackReader;
+    private final TrackSimplifier trackSimplifier;
+    private final LocationDayCache locationDayCache;
+    private final LocationIngestFilter locationIngestFilter;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final int MANUAL_ACCURACY = 0;
 
     public List<LocationHistoryEntity> getLocationHistory(LocalDate from, LocalDate to) {
+        if (locationDayCache.isCacheable(from, to)) {
+            return locationDayCache.getLocationHistory(from, to);
+        }
         return locationHistoryRepository.findAllByTimestampBetween(from.atStartOfDay(), to.atStartOfDay().plusDays(1));
     }
 
-    public List<LocationHistoryEntity> getSparseLocationHistory(LocalDate from, LocalDate to) {
-        final var allTimestamps = locationHistoryRepository.findAllByTimestampBetweenSparseSample(from.atStartOfDay(), to.atStartOfDay().plusDays(1), 0.1);
-        return allTimestamps;
+    public LocationTrack getSparseLocationHistory(LocalDate from, LocalDate to, int maxPoints) {
+        return locationTrackPyramid.readTrack(from, to, maxPoints);
     }
 
-    @Async
-    public void importGoogleLocationHistory(File file) {
-        importProgressService.setProgress(1);
-        final var locationHistory = locationHistoryImporter.importLocationHistory(file);
-        computeAdditionalFields(locationHistory);
+    /**
+     * The track of a range of days within a map viewport, simplified to at most {@code maxPoints} points while it is
+     * read.
+     */
+    public LocationTrack getSparseLocationHistoryWithin(BoundingBox boundingBox, LocalDate from, LocalDate to, int maxPoints) {
+        if (!boundingBox.isValid()) {
+            throw new ThereaboutException(HttpStatus.BAD_REQUEST, "%s is not a valid bounding box".formatted(boundingBox));
+        }
+        final var buffer = BoundedTrackBuffer.forBudget(trackSimplifier, maxPoints);
+        locationTrackReader.readTrackWithin(boundingBox, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), buffer);
+        return buffer.toTrack(maxPoints);
+    }
 
-        AtomicLong importedCount = new AtomicLong();
-        Lists.partition(locationHistory, CHUNK_SIZE).forEach(chunk -> {
-            importedCount.addAndGet(chunk.size());
-            locationHistoryRepository.saveAll(chunk);
-            importProgressService.setProgress(calculatePercentage(locationHistory.size(), importedCount.get()));
-            log.info("Imported %d%% of Google Location History.".formatted(importProgressService.getProgress()));
-        });
+    /**
+     * Persist an import of the given file before it is handed to the import executor, so it isn't lost if the
+     * application stops while it is waiting.
+     */
+    public LocationImportJobEntity queueLocationHistoryImport(File file, LocationImportFormat format) {
+        return locationImportJobRepository.save(LocationImportJobEntity.builder()
+                .filePath(file.getAbsolutePath())
+                .format(format)
+                .status(LocationImportJobStatus.QUEUED)
+                .totalBytes(file.length())
+                .build());
+    }
 
-        locationHistoryRepository.flush();
-        importProgressService.reset();
-        log.info("Finished importing %d entries of Google Location History.".formatted(locationHistory.size()));
+    /**
+     * Give up on an import that never ran, its file is deleted.
+     */
+    public void failLocationHistoryImport(LocationImportJobEntity job, String errorMessage) {
+        completeImportJob(job, LocationImportJobStatus.FAILED, errorMessage);
+    }
+
+    /**
+     * Start a queued import, or continue one that was interrupted (e.g. by a restart) after the last record it
+     * committed.
+     */
+    public void resumeLocationHistoryImport(LocationImportJobEntity job) {
+        if (!new File(job.getFilePath()).isFile()) {
+            log.warn("Can't resume import job %d, '%s' doesn't exist anymore.".formatted(job.getId(), job.getFilePath()));
+            completeImportJob(job, LocationImportJobStatus.FAILED, "The import file doesn't exist anymore");
+            return;
+        }
+        if (job.getRecordsCommitted() > 0) {
+            log.info("Resuming import of '%s' after %d already imported records.".formatted(job.getFilePath(), job.getRecordsCommitted()));
+        }
+        job.setStatus(LocationImportJobStatus.RUNNING);
+        locationImportJobRepository.save(job);
+        runLocationHistoryImport(job);
     }
 
-    private int calculatePercentage(long total, long current) {
-        int percentage = (int) ((current / (float) total) * 100);
-        return Math.max(percentage, 1);
+    private void runLocationHistoryImport(LocationImportJobEntity job) {
+        final var file = new File(job.getFilePath());
+        importProgressService.setBytesRead(job.getBytesCommitted());
+        importProgressService.setStage(job.getRecordsCommitted() > 0 ? "skipping already imported records" : "importing records");
+        try {
+            final var importedCount = locationImportPipeline.importLocations(file, job.getFormat(), job.getRecordsCommitted(), this::computeAdditionalFields, chunk -> {
+                locationImportJobRepository.updateCheckpoint(job.getId(), chunk.recordsRead(), chunk.bytesRead());
+                eventPublisher.publishEvent(LocationHistoryChangedEvent.ofEntries(chunk.entries()));
+                importProgressService.setStage("importing records");
+                importProgressService.setRecordsProcessed(chunk.recordsRead() - job.getRecordsCommitted());
+                importProgressService.setBytesRead(chunk.bytesRead());
+                log.info("Imported %d%% of %s.".formatted(importProgressService.getProgress(), file.getName()));
+            });
+            completeImportJob(job, LocationImportJobStatus.FINISHED, null);
+            log.info("Finished importing %d location history entries from %s, %.1f%% of country lookups were cached."
+                    .formatted(importedCount, file.getName(), countryResolver.hitRate() * 100));
+        } catch (ThereaboutException e) {
+            // a client error means the file itself is broken, resuming it would fail again
+            completeImportJob(job, e.getStatusCode().is4xxClientError() ? LocationImportJobStatus.FAILED : LocationImportJobStatus.INTERRUPTED, e.getReason());
+            throw e;
+        } catch (RuntimeException e) {
+            completeImportJob(job, LocationImportJobStatus.INTERRUPTED, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void completeImportJob(LocationImportJobEntity job, LocationImportJobStatus status, String errorMessage) {
+        // re-read, the checkpoint has been moved forward by update queries
+        final var storedJob = locationImportJobRepository.findById(job.getId()).orElse(job);
+        storedJob.setStatus(status);
+        storedJob.setErrorMessage(errorMessage == null ? null : Ascii.truncate(errorMessage, 1024, "..."));
+        locationImportJobRepository.save(storedJob);
+
+        if (status != LocationImportJobStatus.INTERRUPTED) {
+            deleteImportFile(Path.of(job.getFilePath()));
+        }
+    }
+
+    private void deleteImportFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            // uploads are stored in a directory of their own
+            Files.deleteIfExists(file.getParent());
+        } catch (IOException e) {
+            log.warn("Failed to clean up import file %s: %s".formatted(file, e.getMessage()));
+        }
     }
 
     public LocationHistoryEntity createLocationHistoryEntry(LocationHistoryEntity locationHistoryEntity) {
-        computeAdditionalFields(locationHistoryEntity);
-        final var createdLocationHistory = locationHistoryRepository.save(locationHistoryEntity);
+        final var filtered = locationIngestFilter.filter(List.of(locationHistoryEntity));
+        if (!filtered.report().isEmpty()) {
+            log.info("Filtered new location history entry: %s.".formatted(filtered.report()));
+        }
+        // the first entry of a batch is never dropped, a batch of one always keeps its entry
+        final var entry = filtered.entries().getFirst();
+        computeAdditionalFields(entry);
+        final var createdLocationHistory = saveUnique(entry);
+        eventPublisher.publishEvent(LocationHistoryChangedEvent.ofEntries(List.of(createdLocationHistory)));
         log.info("Created location history entry with id %d.".formatted(createdLocationHistory.getId()));
         return createdLocationHistory;
     }
 
-    private void computeAdditionalFields(List<LocationHistoryEntity> entries) {
-        log.info("Computing additional fields for %d location history entries.".formatted(entries.size()));
-        entries.forEach(this::computeAdditionalFields);
-        log.info("Finished computing additional fields for %d location history entries.".formatted(entries.size()));
+    /**
+     * Store a batch of entries, e.g. from a tracking app, with one multi-row insert. The batch is filtered and then
+     * geocoded in recording order, so consecutive points mostly hit the country resolver's cache.
+     *
+     * @return how many entries have been stored, filtered and skipped because they exist already
+     */
+    @Transactional
+    public LocationBatchResult createLocationHistoryEntries(List<LocationHistoryEntity> entries) {
+        final var filtered = locationIngestFilter.filter(entries);
+        if (!filtered.report().isEmpty()) {
+            log.info("Filtered a batch of %d location history entries: %s.".formatted(entries.size(), filtered.report()));
+        }
+        filtered.entries().forEach(this::computeAdditionalFields);
+        final int inserted = locationHistoryBulkWriter.insertAll(filtered.entries());
+        if (inserted > 0) {
+            eventPublisher.publishEvent(LocationHistoryChangedEvent.ofEntries(filtered.entries()));
+        }
+        return new LocationBatchResult(inserted, filtered.entries().size() - inserted, filtered.report());
     }
 
     private void computeAdditionalFields(LocationHistoryEntity entry) {
@@ -84,29 +206,88 @@ public class LocationHistoryService {
     }
 
     private String estimateCountryForCoordinates(LocationHistoryEntity entry) {
-        return reverseGeocoder.getCountry(entry.getLatitude(), entry.getLongitude())
-                .map(Country::iso)
-                .orElse(null);
+        return countryResolver.resolveIsoCode(entry.getLatitude(), entry.getLongitude());
     }
 
+    @Transactional
     public void deleteLocationHistoryEntries(List<Long> locationHistoryEntryIds) {
+        final var days = locationHistoryRepository.findTimestampsByIdIn(locationHistoryEntryIds).stream()
+                .map(LocalDateTime::toLocalDate)
+                .collect(Collectors.toUnmodifiableSet());
         locationHistoryRepository.deleteAllById(locationHistoryEntryIds);
+        // listeners may query the table directly
+        locationHistoryRepository.flush();
+        eventPublisher.publishEvent(new LocationHistoryChangedEvent(days));
         log.info("Deleted %d location history entries.".formatted(locationHistoryEntryIds.size()));
     }
 
+    /**
+     * Mark all active entries of the selection as ignored with one statement.
+     */
+    @Transactional
+    public LocationBulkResult ignoreLocationHistoryEntries(LocationHistorySelection selection) {
+        final var result = applyBulkOperation(selection, true, locationHistoryBulkOperations::ignore);
+        log.info("Ignored %d location history entries on %d days.".formatted(result.affectedEntries(), result.affectedDays()));
+        return result;
+    }
+
+    /**
+     * Delete all entries of the selection with one statement, ignored ones included.
+     */
+    @Transactional
+    public LocationBulkResult deleteLocationHistoryEntries(LocationHistorySelection selection) {
+        final var result = applyBulkOperation(selection, false, locationHistoryBulkOperations::delete);
+        log.info("Deleted %d location history entries on %d days.".formatted(result.affectedEntries(), result.affectedDays()));
+        return result;
+    }
+
+    private LocationBulkResult applyBulkOperation(LocationHistorySelection selection, boolean activeOnly,
+                                                  ToIntFunction<LocationHistorySelection> operation) {
+        if (selection.from() == null || selection.to() == null || !selection.from().isBefore(selection.to())) {
+            throw new ThereaboutException(HttpStatus.BAD_REQUEST,
+                    "%s - %s is not a valid time range".formatted(selection.from(), selection.to()));
+        }
+        if (selection.boundingBox() != null && !selection.boundingBox().isValid()) {
+            throw new ThereaboutException(HttpStatus.BAD_REQUEST,
+                    "%s is not a valid bounding box".formatted(selection.boundingBox()));
+        }
+        // the days have to be read before the entries are gone
+        final var days = Set.copyOf(locationHistoryBulkOperations.findDays(selection, activeOnly));
+        final int affectedEntries = operation.applyAsInt(selection);
+        if (affectedEntries > 0) {
+            eventPublisher.publishEvent(new LocationHistoryChangedEvent(days));
+        }
+        return new LocationBulkResult(affectedEntries, days.size());
+    }
+
     @Transactional
     public LocationHistoryEntity updateLocationHistoryEntry(long entryId, LocationHistoryEntity updateEntry) {
         final var existingEntry = locationHistoryRepository.findById(entryId).orElseThrow();
+        final var previousDay = existingEntry.getTimestamp().toLocalDate();
 
         existingEntry.setTimestamp(updateEntry.getTimestamp());
         existingEntry.setAltitude(updateEntry.getAltitude());
         existingEntry.setLatitude(updateEntry.getLatitude());
         existingEntry.setLongitude(updateEntry.getLongitude());
+        existingEntry.setRawLatitude(null);
+        existingEntry.setRawLongitude(null);
         existingEntry.setHorizontalAccuracy(MANUAL_ACCURACY);
         existingEntry.setVerticalAccuracy(MANUAL_ACCURACY);
         existingEntry.setSource(LocationHistorySource.THEREABOUT_API_UPDATE);
         existingEntry.setEstimatedIsoCountryCode(estimateCountryForCoordinates(updateEntry));
         existingEntry.setNote(updateEntry.getNote());
-        return locationHistoryRepository.save(existingEntry);
+        final var updatedEntry = saveUnique(existingEntry);
+        eventPublisher.publishEvent(new LocationHistoryChangedEvent(Stream.of(previousDay, updatedEntry.getTimestamp().toLocalDate())
+                .collect(Collectors.toUnmodifiableSet())));
+        return updatedEntry;
+    }
+
+    private LocationHistoryEntity saveUnique(LocationHistoryEntity entry) {
+        try {
+            return locationHistoryRepository.saveAndFlush(entry);
+        } catch (DataIntegrityViolationException e) {
+            throw new ThereaboutException(HttpStatus.CONFLICT,
+                    "A location history entry at %s with the same coordinates already exists.".formatted(entry.getTimestamp()));
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.client.service.ImportJobRegistry;
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.generated.model.GenImportType;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
+import com.sixtymeters.thereabout.location.data.LocationImportJobEntity;
+import com.sixtymeters.thereabout.location.data.LocationImportJobRepository;
+import com.sixtymeters.thereabout.location.data.LocationImportJobStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * After the application is ready, resume location imports that didn't finish before the last shutdown, including
+ * the ones that were still queued.
+ */
+@Slf4j
+@Component
+@Order(100)
+@RequiredArgsConstructor
+public class LocationImportResumeRunner implements ApplicationRunner {
+
+    private final LocationImportJobRepository locationImportJobRepository;
+    private final LocationHistoryService locationHistoryService;
+    private final ImportJobRegistry importJobRegistry;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        final var unfinishedJobs = locationImportJobRepository.findAllByStatusIn(
+                List.of(LocationImportJobStatus.QUEUED, LocationImportJobStatus.RUNNING, LocationImportJobStatus.INTERRUPTED));
+        if (!unfinishedJobs.isEmpty()) {
+            log.info("Found %d unfinished location imports, resuming them.".formatted(unfinishedJobs.size()));
+        }
+        for (LocationImportJobEntity job : unfinishedJobs) {
+            try {
+                importJobRegistry.submit(importTypeOf(job.getFormat()), new File(job.getFilePath()),
+                        () -> locationHistoryService.resumeLocationHistoryImport(job));
+            } catch (ThereaboutException e) {
+                // the queue is full, the job stays unfinished and is resumed after the next start
+                log.warn("Can't resume import job %d of '%s' now: %s".formatted(job.getId(), job.getFilePath(), e.getReason()));
+            }
+        }
+    }
+
+    private static GenImportType importTypeOf(LocationImportFormat format) {
+        return switch (format) {
+            case GOOGLE_RECORDS -> GenImportType.GOOGLE_MAPS_RECORDS;
+            case GOOGLE_TIMELINE -> GenImportType.GOOGLE_TIMELINE_JSON;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.google.common.hash.Hashing;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationIngestBatchEntity;
+import com.sixtymeters.thereabout.location.data.LocationIngestBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stores batches from tracking apps exactly once. Apps retry a batch when the connection drops after the server
+ * committed it, the retry is then recognised by its key and answered with the original result.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocationIngestBatchService {
+
+    static final Duration REPLAY_WINDOW = Duration.ofDays(7);
+
+    private final LocationIngestBatchRepository locationIngestBatchRepository;
+    private final LocationHistoryService locationHistoryService;
+
+    public static String batchKeyOfIdempotencyKey(String idempotencyKey) {
+        return Hashing.sha256().hashString("idempotency-key:" + idempotencyKey, StandardCharsets.UTF_8).toString();
+    }
+
+    public static String batchKeyOfContent(byte[] content) {
+        return Hashing.sha256().hashBytes(content).toString();
+    }
+
+    /**
+     * Store the valid entries of a batch, unless a batch with the same key has been received within the replay window.
+     */
+    @Transactional
+    public LocationIngestResult ingest(String batchKey, List<LocationHistoryEntity> validEntries, int rejected) {
+        final var now = Instant.now();
+        locationIngestBatchRepository.deleteAllReceivedBefore(now.minus(REPLAY_WINDOW));
+
+        final var original = locationIngestBatchRepository.findByIdForUpdate(batchKey);
+        if (original.isPresent()) {
+            final var batch = original.get();
+            return new LocationIngestResult(batch.getAccepted(), batch.getDuplicates(), batch.getRejected(),
+                    batch.getIgnored(), batch.getDropped(), true);
+        }
+        // claimed right away, a concurrent delivery of the batch then waits for this one
+        final var batch = locationIngestBatchRepository.saveAndFlush(LocationIngestBatchEntity.builder()
+                .batchKey(batchKey)
+                .receivedAt(now)
+                .build());
+
+        final var stored = validEntries.isEmpty()
+                ? new LocationBatchResult(0, 0, LocationIngestFilterReport.NONE)
+                : locationHistoryService.createLocationHistoryEntries(validEntries);
+        final var result = new LocationIngestResult(stored.inserted(), stored.duplicates(), rejected,
+                stored.filtered().ignored(), stored.filtered().dropped(), false);
+        batch.setAccepted(result.accepted());
+        batch.setDuplicates(result.duplicates());
+        batch.setRejected(result.rejected());
+        batch.setIgnored(result.ignored());
+        batch.setDropped(result.dropped());
+        return result;
+    }
+}
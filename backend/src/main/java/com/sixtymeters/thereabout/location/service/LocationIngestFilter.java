@@ -0,0 +1,158 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cleans up a batch of new entries before it is stored, in this order:
+ * <ol>
+ *     <li>entries with a horizontal accuracy worse than the threshold are ignored</li>
+ *     <li>spikes are ignored, entries that are far away from both neighbours while the neighbours are close to each
+ *     other, judged by the speed it would take to get there and back</li>
+ *     <li>optionally, the coordinates of the remaining entries are smoothed, the received coordinates are kept as
+ *     raw coordinates for deduplication</li>
+ *     <li>entries at the position of the previous kept entry of the batch are dropped, at least one per interval is
+ *     kept</li>
+ * </ol>
+ * Ignored entries are still stored, they can be restored later. Only the entries of one batch are looked at, nothing
+ * is compared with entries that are stored already. The spike and stationary state starts over with every batch (or
+ * import chunk): the first and last entry of a batch are never considered a spike, and the first entry is never
+ * dropped, so a batch of a single entry is stored as it is apart from the accuracy check and smoothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocationIngestFilter {
+
+    private final LocationIngestFilterProperties properties;
+
+    /**
+     * @param entries the entries to store, ignored ones are flagged in place
+     * @param report  what has been filtered
+     */
+    public record FilteredEntries(List<LocationHistoryEntity> entries, LocationIngestFilterReport report) {
+    }
+
+    /**
+     * @param entries a batch of new entries in any order, modified in place
+     * @return the entries that should be stored, in chronological order
+     */
+    public FilteredEntries filter(List<LocationHistoryEntity> entries) {
+        if (!properties.isEnabled() || entries.isEmpty()) {
+            return new FilteredEntries(entries, LocationIngestFilterReport.NONE);
+        }
+        final var chronological = entries.size() == 1 ? entries
+                : entries.stream().sorted(Comparator.comparing(LocationHistoryEntity::getTimestamp)).toList();
+
+        final int inaccurate = ignoreInaccurate(chronological);
+        final int implausible = ignoreSpikes(chronological);
+        final int smoothed = properties.isSmoothing() ? smooth(chronological) : 0;
+        final var stored = dropStationary(chronological);
+        return new FilteredEntries(stored, new LocationIngestFilterReport(
+                inaccurate, implausible, chronological.size() - stored.size(), smoothed));
+    }
+
+    private int ignoreInaccurate(List<LocationHistoryEntity> entries) {
+        int inaccurate = 0;
+        for (LocationHistoryEntity entry : entries) {
+            if (!entry.isIgnoreEntry() && entry.getHorizontalAccuracy() > properties.getMaxHorizontalAccuracyMeters()) {
+                entry.setIgnoreEntry(true);
+                inaccurate++;
+            }
+        }
+        return inaccurate;
+    }
+
+    private int ignoreSpikes(List<LocationHistoryEntity> entries) {
+        final var active = activeEntries(entries);
+        int implausible = 0;
+        LocationHistoryEntity previous = null;
+        for (int i = 0; i < active.size(); i++) {
+            final var entry = active.get(i);
+            final var next = i + 1 < active.size() ? active.get(i + 1) : null;
+            if (previous != null && next != null && isTooFast(previous, entry) && isTooFast(entry, next)
+                    && !isTooFast(previous, next)) {
+                entry.setIgnoreEntry(true);
+                implausible++;
+            } else {
+                previous = entry;
+            }
+        }
+        return implausible;
+    }
+
+    private boolean isTooFast(LocationHistoryEntity from, LocationHistoryEntity to) {
+        // fixes within the same second are compared as if they were a second apart
+        final double seconds = Math.max(1, Duration.between(from.getTimestamp(), to.getTimestamp()).abs().toMillis() / 1000.0);
+        return distanceMeters(from, to) > properties.getMaxSpeedMetersPerSecond() * seconds;
+    }
+
+    /**
+     * A Kalman filter per coordinate with the horizontal accuracy as measurement error. The uncertainty of the
+     * estimate grows with the time since the previous entry, so entries after a gap are taken mostly as they are.
+     */
+    private int smooth(List<LocationHistoryEntity> entries) {
+        final double processNoise = properties.getProcessNoiseMetersPerSecond();
+        int smoothed = 0;
+        LocationHistoryEntity previous = null;
+        double latitude = 0;
+        double longitude = 0;
+        double variance = 0;
+        for (LocationHistoryEntity entry : activeEntries(entries)) {
+            final double accuracy = entry.getHorizontalAccuracy();
+            if (previous == null || accuracy <= 0) {
+                // nothing to smooth with, or an entry of unknown accuracy that is taken as it is
+                latitude = entry.getLatitude();
+                longitude = entry.getLongitude();
+                variance = Math.max(1, accuracy * accuracy);
+                previous = entry;
+                continue;
+            }
+            final double seconds = Duration.between(previous.getTimestamp(), entry.getTimestamp()).toMillis() / 1000.0;
+            variance += seconds * processNoise * processNoise;
+            final double gain = variance / (variance + accuracy * accuracy);
+            latitude += gain * (entry.getLatitude() - latitude);
+            longitude += gain * (entry.getLongitude() - longitude);
+            variance *= 1 - gain;
+            if (latitude != entry.getLatitude() || longitude != entry.getLongitude()) {
+                // the raw coordinates stay the natural key, a re-sent entry is smoothed differently in another batch
+                entry.setRawLatitude(entry.getLatitude());
+                entry.setRawLongitude(entry.getLongitude());
+                entry.setLatitude(latitude);
+                entry.setLongitude(longitude);
+                smoothed++;
+            }
+            previous = entry;
+        }
+        return smoothed;
+    }
+
+    private List<LocationHistoryEntity> dropStationary(List<LocationHistoryEntity> entries) {
+        final var stored = new ArrayList<LocationHistoryEntity>(entries.size());
+        LocationHistoryEntity anchor = null;
+        for (LocationHistoryEntity entry : entries) {
+            if (!entry.isIgnoreEntry()) {
+                if (anchor != null && distanceMeters(anchor, entry) <= properties.getStationaryRadiusMeters()
+                        && Duration.between(anchor.getTimestamp(), entry.getTimestamp()).compareTo(properties.getStationaryInterval()) < 0) {
+                    continue;
+                }
+                anchor = entry;
+            }
+            stored.add(entry);
+        }
+        return stored;
+    }
+
+    private static List<LocationHistoryEntity> activeEntries(List<LocationHistoryEntity> entries) {
+        return entries.stream().filter(entry -> !entry.isIgnoreEntry()).toList();
+    }
+
+    private static double distanceMeters(LocationHistoryEntity from, LocationHistoryEntity to) {
+        return VisitDetector.distanceMeters(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+}
@@ -0,0 +1,55 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of the {@link LocationIngestFilter}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thereabout.location.ingest-filter")
+public class LocationIngestFilterProperties {
+
+    /**
+     * Whether new entries are filtered at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Entries with a larger horizontal accuracy, e.g. cell tower fixes, are stored but ignored. 0 is an unknown accuracy.
+     */
+    private int maxHorizontalAccuracyMeters = 500;
+
+    /**
+     * An entry that could only be reached from both of its neighbours at a higher speed is stored but ignored.
+     */
+    private double maxSpeedMetersPerSecond = 350;
+
+    /**
+     * Entries within this distance of the previous stored entry and within {@code stationaryInterval} of its
+     * timestamp are redundant and dropped.
+     */
+    private double stationaryRadiusMeters = 5;
+
+    /**
+     * A stay at one place keeps at least one entry per interval.
+     */
+    private Duration stationaryInterval = Duration.ofMinutes(1);
+
+    /**
+     * Whether the coordinates of the remaining entries are smoothed with a Kalman filter, weighted by their accuracy.
+     */
+    private boolean smoothing = false;
+
+    /**
+     * How fast the position is expected to drift between entries while smoothing, larger values follow new entries
+     * more closely.
+     */
+    private double processNoiseMetersPerSecond = 3;
+}
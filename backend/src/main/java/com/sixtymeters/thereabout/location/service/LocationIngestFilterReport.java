@@ -0,0 +1,43 @@
+package com.sixtymeters.thereabout.location.service;
+
+/**
+ * What the {@link LocationIngestFilter} did to a batch of entries.
+ *
+ * @param inaccurate entries ignored because of their horizontal accuracy
+ * @param implausible entries ignored because reaching them would have required an impossible speed
+ * @param stationary redundant entries at the position of the previous one that have been dropped
+ * @param smoothed entries whose coordinates have been smoothed
+ */
+public record LocationIngestFilterReport(int inaccurate, int implausible, int stationary, int smoothed) {
+
+    public static final LocationIngestFilterReport NONE = new LocationIngestFilterReport(0, 0, 0, 0);
+
+    /**
+     * @return the entries that are stored, but ignored
+     */
+    public int ignored() {
+        return inaccurate + implausible;
+    }
+
+    /**
+     * @return the entries that are not stored at all
+     */
+    public int dropped() {
+        return stationary;
+    }
+
+    public boolean isEmpty() {
+        return this.equals(NONE);
+    }
+
+    public LocationIngestFilterReport plus(LocationIngestFilterReport other) {
+        return new LocationIngestFilterReport(inaccurate + other.inaccurate, implausible + other.implausible,
+                stationary + other.stationary, smoothed + other.smoothed);
+    }
+
+    @Override
+    public String toString() {
+        return "%d inaccurate and %d implausible entries ignored, %d stationary entries dropped, %d entries smoothed"
+                .formatted(inaccurate, implausible, stationary, smoothed);
+    }
+}
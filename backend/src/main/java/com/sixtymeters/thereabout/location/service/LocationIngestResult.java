@@ -0,0 +1,14 @@
+package com.sixtymeters.thereabout.location.service;
+
+/**
+ * Outcome of storing a batch of locations from a tracking app.
+ *
+ * @param accepted   entries that have been stored
+ * @param duplicates valid entries that were stored already
+ * @param rejected   entries that were invalid and skipped
+ * @param ignored    accepted entries that have been stored as ignored, e.g. because of their accuracy
+ * @param dropped    valid entries that were redundant and not stored
+ * @param replayed   whether the whole batch has been received before, in which case the counts are the original ones
+ */
+public record LocationIngestResult(int accepted, int duplicates, int rejected, int ignored, int dropped, boolean replayed) {
+}
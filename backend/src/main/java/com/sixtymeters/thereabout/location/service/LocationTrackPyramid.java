@@ -0,0 +1,141 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import com.sixtymeters.thereabout.location.data.LocationTrackPyramidRepository;
+import com.sixtymeters.thereabout.location.data.LocationTrackPyramidRepository.LevelSize;
+import com.sixtymeters.thereabout.location.data.LocationTrackReader;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a simplified track of every day at a few resolutions, so that a map of years of location history is
+ * assembled from one precomputed row per day instead of simplifying millions of entries per request.
+ * <p>
+ * Days are rebuilt in the background after a change to their entries has been committed. Short ranges, and ranges
+ * with many days without pyramid yet, are simplified from the entries directly. A few missing days, e.g. written
+ * ones that are not rebuilt yet, are simplified from their entries and joined with the pyramid.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocationTrackPyramid {
+
+    // level 0 is the coarsest
+    static final int[] POINTS_PER_DAY = {16, 64, 256, 1024};
+
+    // up to this many entries, simplifying the range as a whole is fast and gives the better track, they fit into the
+    // buffer of a direct simplification
+    static final long DIRECT_SIMPLIFICATION_LIMIT = BoundedTrackBuffer.MINIMUM_CAPACITY;
+
+    // days without pyramid are simplified one by one, with more of them the range is simplified as a whole
+    static final int MAX_MISSING_DAYS = 31;
+
+    private final LocationTrackReader locationTrackReader;
+    private final LocationTrackPyramidRepository locationTrackPyramidRepository;
+    private final TrackSimplifier trackSimplifier;
+    private final DataVersionService dataVersionService;
+    private final Set<LocalDate> pendingDays = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "location-pyramid"));
+
+    /**
+     * The track of a range of days, simplified to at most {@code maxPoints} points.
+     */
+    public LocationTrack readTrack(LocalDate from, LocalDate to, int maxPoints) {
+        final var levelSizes = locationTrackPyramidRepository.findLevelSizes(from, to);
+        if (levelSizes.isEmpty() || levelSizes.getFirst().sourcePoints() <= DIRECT_SIMPLIFICATION_LIMIT) {
+            return readSimplified(from, to, maxPoints);
+        }
+        // days that are still being backfilled, or written and not rebuilt yet
+        final var missingDays = locationTrackPyramidRepository.findDaysWithoutPyramid(from, to);
+        if (missingDays.size() > MAX_MISSING_DAYS) {
+            return readSimplified(from, to, maxPoints);
+        }
+
+        final int level = levelSizes.reversed().stream()
+                .filter(levelSize -> levelSize.points() + (long) missingDays.size() * POINTS_PER_DAY[levelSize.level()] <= maxPoints)
+                .mapToInt(LevelSize::level)
+                .findFirst()
+                .orElse(0);
+        final var days = locationTrackPyramidRepository.readLevelDays(level, from, to);
+        for (LocalDate day : missingDays) {
+            final var track = locationTrackReader.readTrack(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            days.put(day, track.select(trackSimplifier.simplify(track, POINTS_PER_DAY[level])));
+        }
+        final var track = LocationTrack.join(days.values());
+        return track.size() <= maxPoints ? track : track.select(trackSimplifier.simplify(track, maxPoints));
+    }
+
+    /**
+     * Simplifies the entries while they are read, with a bounded buffer however many entries the range has.
+     */
+    private LocationTrack readSimplified(LocalDate from, LocalDate to, int maxPoints) {
+        final var buffer = BoundedTrackBuffer.forBudget(trackSimplifier, maxPoints);
+        locationTrackReader.readTrack(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), buffer);
+        return buffer.toTrack(maxPoints);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        scheduleRebuild(event.days());
+    }
+
+    /**
+     * Build the pyramid of all days that don't have one yet, in the background.
+     */
+    public void scheduleMissingDays() {
+        rebuilder.execute(() -> {
+            final var missingDays = locationTrackPyramidRepository.findDaysWithoutPyramid();
+            if (!missingDays.isEmpty()) {
+                log.info("Building the location track pyramid of %d days.".formatted(missingDays.size()));
+                scheduleRebuild(missingDays);
+            }
+        });
+    }
+
+    private void scheduleRebuild(Collection<LocalDate> days) {
+        if (pendingDays.addAll(days)) {
+            rebuilder.execute(this::rebuildPendingDays);
+        }
+    }
+
+    private void rebuildPendingDays() {
+        for (LocalDate day : List.copyOf(pendingDays)) {
+            // a change that arrives while the day is rebuilt schedules it again
+            pendingDays.remove(day);
+            try {
+                rebuildDay(day);
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild the location track pyramid of %s: %s".formatted(day, e.getMessage()));
+            }
+        }
+    }
+
+    void rebuildDay(LocalDate day) {
+        final var track = locationTrackReader.readTrack(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        final var levels = track.size() == 0 ? List.<LocationTrack>of() : Arrays.stream(POINTS_PER_DAY)
+                .mapToObj(points -> track.select(trackSimplifier.simplify(track, points)))
+                .toList();
+        locationTrackPyramidRepository.replaceDay(day, track.size(), levels);
+        dataVersionService.touch(DataDomain.LOCATION_TRACK, List.of(day));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
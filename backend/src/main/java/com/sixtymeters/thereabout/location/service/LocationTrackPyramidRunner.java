@@ -0,0 +1,23 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * After the application is ready, build the track pyramid of days that were written before it existed.
+ */
+@Component
+@Order(200)
+@RequiredArgsConstructor
+public class LocationTrackPyramidRunner implements ApplicationRunner {
+
+    private final LocationTrackPyramid locationTrackPyramid;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        locationTrackPyramid.scheduleMissingDays();
+    }
+}
@@ -0,0 +1,28 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * When entries count as a stay at one place, see {@link VisitDetector}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thereabout.location.visits")
+public class LocationVisitProperties {
+
+    /**
+     * How far the entries of a stay may be from its first entry.
+     */
+    private double radiusMeters = 100;
+
+    /**
+     * How long the entries have to stay within the radius.
+     */
+    private Duration minimumDwell = Duration.ofMinutes(10);
+}
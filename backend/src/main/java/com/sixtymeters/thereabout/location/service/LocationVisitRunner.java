@@ -0,0 +1,24 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * After the application is ready, detect the visits of entries that haven't been processed yet, such as those
+ * written before visits existed.
+ */
+@Component
+@Order(210)
+@RequiredArgsConstructor
+public class LocationVisitRunner implements ApplicationRunner {
+
+    private final LocationVisitService locationVisitService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        locationVisitService.scheduleDetection();
+    }
+}
@@ -0,0 +1,113 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryCursor;
+import com.sixtymeters.thereabout.location.data.LocationVisit;
+import com.sixtymeters.thereabout.location.data.LocationVisitRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Turns the location history into visits, so that the places where time was spent are looked up in a few thousand
+ * rows instead of millions of entries.
+ * <p>
+ * Detection runs in the background after entries have been committed and continues from the watermark, the departure
+ * of the last stored visit. Changes before the watermark rewind it to the start of the earliest changed day first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocationVisitService {
+
+    // the range of DATETIME
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final LocationHistoryCursor locationHistoryCursor;
+    private final LocationVisitRepository locationVisitRepository;
+    private final LocationVisitProperties locationVisitProperties;
+    private final AtomicReference<LocalDate> earliestChangedDay = new AtomicReference<>();
+    private final AtomicBoolean detectionScheduled = new AtomicBoolean();
+    private final ExecutorService detector = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "location-visits"));
+
+    /**
+     * The visits that overlap a range of days, in chronological order. Entries after the last visit that has been
+     * left aren't part of any visit yet.
+     */
+    public List<LocationVisit> getVisits(LocalDate from, LocalDate to) {
+        return locationVisitRepository.findOverlapping(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        if (event.days().isEmpty()) {
+            return;
+        }
+        final var earliest = Collections.min(event.days());
+        earliestChangedDay.accumulateAndGet(earliest,
+                (current, changed) -> current == null || changed.isBefore(current) ? changed : current);
+        scheduleDetection();
+    }
+
+    /**
+     * Detect the visits of all entries after the watermark, in the background.
+     */
+    public void scheduleDetection() {
+        if (detectionScheduled.compareAndSet(false, true)) {
+            detector.execute(() -> {
+                // changes from now on need another run
+                detectionScheduled.set(false);
+                try {
+                    detectVisits();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to detect location visits: %s".formatted(e.getMessage()));
+                }
+            });
+        }
+    }
+
+    void detectVisits() {
+        final var changedDay = earliestChangedDay.get();
+        if (changedDay != null) {
+            locationVisitRepository.rewindTo(changedDay.atStartOfDay());
+            // an even earlier change that arrived in the meantime rewinds on the next run
+            earliestChangedDay.compareAndSet(changedDay, null);
+        }
+
+        final var visits = new ArrayList<LocationVisit>();
+        final var visitDetector = new VisitDetector(
+                locationVisitProperties.getRadiusMeters(),
+                locationVisitProperties.getMinimumDwell(),
+                locationVisitRepository.findLastVisit().orElse(null),
+                visits::add);
+        // DATETIME(6) has microsecond precision, the entries at the watermark belong to the last visit
+        final var from = locationVisitRepository.findWatermark()
+                .map(watermark -> watermark.plus(1, ChronoUnit.MICROS))
+                .orElse(BEGINNING);
+        locationHistoryCursor.forEachEntry(from, END, visitDetector::accept);
+
+        if (!visits.isEmpty()) {
+            locationVisitRepository.append(visits);
+            log.info("Detected %d location visits after %s.".formatted(visits.size(), from));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        detector.shutdownNow();
+    }
+}
@@ -1,38 +1,38 @@
 package com.sixtymeters.thereabout.location.service;
 
-import com.sixtymeters.thereabout.location.service.statistics.CountryVisitInfo;
+import com.sixtymeters.thereabout.location.data.CountryDayRepository;
 import com.sixtymeters.thereabout.generated.model.GenCountryStatistic;
-import com.sixtymeters.thereabout.location.data.LocationHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import uk.recurse.geocoding.reverse.ReverseGeocoder;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Statistics of the location history. The days spent per country are kept in {@code country_day}, which is updated
+ * in the transaction that changes the entries of a day, so a statistic never scans the entries themselves.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatisticsService {
 
-    private final LocationHistoryRepository locationHistoryRepository;
-    private final ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
+    private final CountryDayRepository countryDayRepository;
+    private final CountryResolver countryResolver;
+
+    @EventListener
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        countryDayRepository.rebuildDays(event.days());
+    }
 
     public List<GenCountryStatistic> calculateCountryStats() {
         log.info("Calculating country statistics.");
 
-        return getCountryVisitInfo().entrySet().stream()
-                .filter(entry -> !(entry.getKey()== null))
-                .filter(entry -> !(entry.getKey().isBlank()))
-                .map(countryInfo -> {
-                    final var countryDetails = reverseGeocoder.countries()
-                            .filter(c -> c.iso().equals(countryInfo.getKey()))
-                            .findFirst().orElseThrow();
-
-                    final var countryVisitDetails = countryInfo.getValue();
+        return countryDayRepository.findCountryVisits().stream()
+                .map(countryVisitDetails -> {
+                    final var countryDetails = countryResolver.countryOfIso(countryVisitDetails.getCountry()).orElseThrow();
 
                     return GenCountryStatistic.builder()
                             .countryIsoCode(countryDetails.iso())
@@ -44,13 +44,4 @@ public class StatisticsService {
                             .build();
                 }).toList();
     }
-
-    private Map<String, CountryVisitInfo> getCountryVisitInfo() {
-        List<CountryVisitInfo> results = locationHistoryRepository.countDaysSpentInCountries();
-        return results.stream()
-                .collect(Collectors.toMap(
-                        CountryVisitInfo::getCountry,
-                        info -> info
-                ));
-    }
 }
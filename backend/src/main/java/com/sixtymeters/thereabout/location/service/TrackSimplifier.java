@@ -0,0 +1,92 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Reduces a track to a given number of points while keeping its shape, using a ranked Douglas-Peucker:
+ * starting from the first and last point, the point that deviates most from the already kept line is added
+ * until the budget is used up or the remaining points lie on the line.
+ * <p>
+ * The result only depends on the track and the budget, the same range always yields the same points.
+ */
+@Component
+public class TrackSimplifier {
+
+    // Points closer than about a centimeter to the kept line count as lying on it
+    private static final double MIN_SQUARED_DEVIATION = 1e-14;
+
+    private static final Comparator<Segment> LARGEST_DEVIATION_FIRST = Comparator
+            .comparingDouble(Segment::deviation).reversed()
+            .thenComparingInt(Segment::farthest);
+
+    /**
+     * @return the indexes of the points to keep, in ascending order
+     */
+    public int[] simplify(LocationTrack track, int maxPoints) {
+        final int size = track.size();
+        if (size <= maxPoints || size <= 2) {
+            return IntStream.range(0, size).toArray();
+        }
+
+        final var x = track.longitudes();
+        final var y = track.latitudes();
+        final var keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+        int kept = 2;
+
+        final var segments = new PriorityQueue<>(LARGEST_DEVIATION_FIRST);
+        offer(segments, x, y, 0, size - 1);
+        while (kept < maxPoints && !segments.isEmpty()) {
+            final var segment = segments.poll();
+            keep[segment.farthest()] = true;
+            kept++;
+            offer(segments, x, y, segment.start(), segment.farthest());
+            offer(segments, x, y, segment.farthest(), segment.end());
+        }
+
+        final var indexes = new int[kept];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (keep[i]) {
+                indexes[j++] = i;
+            }
+        }
+        return indexes;
+    }
+
+    private static void offer(PriorityQueue<Segment> segments, double[] x, double[] y, int start, int end) {
+        // Equirectangular projection around the segment, good enough to compare deviations of nearby points
+        final double scale = Math.cos(Math.toRadians((y[start] + y[end]) / 2));
+        int farthest = -1;
+        double deviation = MIN_SQUARED_DEVIATION;
+        for (int i = start + 1; i < end; i++) {
+            final double distance = squaredDistanceToSegment(x[i] * scale, y[i], x[start] * scale, y[start], x[end] * scale, y[end]);
+            if (distance > deviation) {
+                deviation = distance;
+                farthest = i;
+            }
+        }
+        if (farthest >= 0) {
+            segments.add(new Segment(start, end, farthest, deviation));
+        }
+    }
+
+    private static double squaredDistanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        final double dx = bx - ax;
+        final double dy = by - ay;
+        final double lengthSquared = dx * dx + dy * dy;
+        // Tracks often return to where they started, then the segment is a single point
+        final double t = lengthSquared == 0 ? 0 : Math.clamp(((px - ax) * dx + (py - ay) * dy) / lengthSquared, 0.0, 1.0);
+        final double cx = ax + t * dx - px;
+        final double cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+
+    private record Segment(int start, int end, int farthest, double deviation) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationDaySummary;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Finds trips in the day summaries: runs of nights spent away from home, where a night is the position of the last
+ * entry of a day.
+ * <p>
+ * Home isn't configured but inferred for every day: it is the place of most nights within {@value #HOME_WINDOW_DAYS}
+ * days before and after, so a move is followed after a few weeks and trips of up to about six weeks are found.
+ */
+final class TripDetector {
+
+    static final int HOME_WINDOW_DAYS = 45;
+
+    // about 1 km
+    private static final double HOME_CELL_DEGREES = 0.01;
+    private static final Comparator<Cell> CELL_ORDER = Comparator.comparingInt(Cell::latitude)
+            .thenComparingInt(Cell::longitude);
+
+    private final double awayDistanceMeters;
+    private final int minimumNights;
+    private final int maxGapDays;
+
+    /**
+     * @param awayDistanceMeters how far from home a night has to be to count as away
+     * @param minimumNights      how many nights away make a trip
+     * @param maxGapDays         how many days without entries a trip may contain, e.g. with the phone switched off
+     */
+    TripDetector(double awayDistanceMeters, int minimumNights, int maxGapDays) {
+        this.awayDistanceMeters = awayDistanceMeters;
+        this.minimumNights = minimumNights;
+        this.maxGapDays = maxGapDays;
+    }
+
+    /**
+     * @param start          the day home was left
+     * @param end            the day home was reached again
+     * @param countries      the ISO codes of the countries of all days of the trip, in alphabetical order
+     * @param distanceMeters the distance of all days of the trip
+     */
+    record DetectedTrip(LocalDate start, LocalDate end, List<String> countries, double distanceMeters) {
+    }
+
+    private record Cell(int latitude, int longitude) {
+
+        static Cell of(double latitude, double longitude) {
+            return new Cell((int) Math.floor(latitude / HOME_CELL_DEGREES), (int) Math.floor(longitude / HOME_CELL_DEGREES));
+        }
+
+        double centerLatitude() {
+            return (latitude + 0.5) * HOME_CELL_DEGREES;
+        }
+
+        double centerLongitude() {
+            return (longitude + 0.5) * HOME_CELL_DEGREES;
+        }
+    }
+
+    /**
+     * @param days the summaries in chronological order
+     * @return the trips in chronological order
+     */
+    List<DetectedTrip> detect(List<LocationDaySummary> days) {
+        final var away = awayNights(days);
+        final var trips = new ArrayList<DetectedTrip>();
+        int first = -1;
+        int last = -1;
+        int nights = 0;
+        for (int i = 0; i < days.size(); i++) {
+            if (!away[i]) {
+                // back home
+                addTrip(trips, days, first, last, nights);
+                first = -1;
+                continue;
+            }
+            if (first >= 0 && ChronoUnit.DAYS.between(days.get(last).day(), days.get(i).day()) > maxGapDays + 1) {
+                addTrip(trips, days, first, last, nights);
+                first = -1;
+            }
+            if (first < 0) {
+                first = i;
+                nights = 0;
+            }
+            last = i;
+            nights++;
+        }
+        addTrip(trips, days, first, last, nights);
+        return trips;
+    }
+
+    private boolean[] awayNights(List<LocationDaySummary> days) {
+        final var away = new boolean[days.size()];
+        final Map<Cell, Integer> nightsPerCell = new HashMap<>();
+        int windowStart = 0;
+        int windowEnd = 0;
+        for (int i = 0; i < days.size(); i++) {
+            final var day = days.get(i).day();
+            while (windowEnd < days.size() && !days.get(windowEnd).day().isAfter(day.plusDays(HOME_WINDOW_DAYS))) {
+                nightsPerCell.merge(cellOf(days.get(windowEnd)), 1, Integer::sum);
+                windowEnd++;
+            }
+            while (days.get(windowStart).day().isBefore(day.minusDays(HOME_WINDOW_DAYS))) {
+                nightsPerCell.computeIfPresent(cellOf(days.get(windowStart)), (cell, nights) -> nights == 1 ? null : nights - 1);
+                windowStart++;
+            }
+
+            final var home = nightsPerCell.entrySet().stream()
+                    .max(Map.Entry.<Cell, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey(CELL_ORDER)))
+                    .orElseThrow()
+                    .getKey();
+            away[i] = VisitDetector.distanceMeters(home.centerLatitude(), home.centerLongitude(),
+                    days.get(i).lastLatitude(), days.get(i).lastLongitude()) > awayDistanceMeters;
+        }
+        return away;
+    }
+
+    private void addTrip(List<DetectedTrip> trips, List<LocationDaySummary> days, int first, int last, int nights) {
+        if (first < 0 || nights < minimumNights) {
+            return;
+        }
+        final var start = days.get(first).day();
+        final var end = days.get(last).day().plusDays(1);
+        final var countries = new TreeSet<String>();
+        double distanceMeters = 0;
+        for (int i = first; i < days.size() && !days.get(i).day().isAfter(end); i++) {
+            countries.addAll(days.get(i).countries());
+            distanceMeters += days.get(i).distanceMeters();
+        }
+        trips.add(new DetectedTrip(start, end, List.copyOf(countries), distanceMeters));
+    }
+
+    private static Cell cellOf(LocationDaySummary day) {
+        return Cell.of(day.lastLatitude(), day.lastLongitude());
+    }
+}
@@ -0,0 +1,31 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * When nights away from home are proposed as a trip, see {@link TripDetector}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thereabout.trips.detection")
+public class TripProposalProperties {
+
+    /**
+     * How far from home a night has to be spent to count as away.
+     */
+    private double awayDistanceMeters = 50_000;
+
+    /**
+     * How many nights away make a trip.
+     */
+    private int minimumNights = 2;
+
+    /**
+     * How many days without location history a trip may contain.
+     */
+    private int maxGapDays = 2;
+}
@@ -0,0 +1,23 @@
+package com.sixtymeters.thereabout.location.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * After the application is ready, detect the trips of the whole location history, e.g. with changed settings.
+ */
+@Component
+@Order(220)
+@RequiredArgsConstructor
+public class TripProposalRunner implements ApplicationRunner {
+
+    private final TripProposalService tripProposalService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        tripProposalService.scheduleDetection();
+    }
+}
@@ -0,0 +1,174 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository;
+import com.sixtymeters.thereabout.location.data.TripEntity;
+import com.sixtymeters.thereabout.location.data.TripProposalEntity;
+import com.sixtymeters.thereabout.location.data.TripProposalRepository;
+import com.sixtymeters.thereabout.location.data.TripProposalStatus;
+import com.sixtymeters.thereabout.location.data.TripsRepository;
+import com.sixtymeters.thereabout.location.service.TripDetector.DetectedTrip;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.recurse.geocoding.reverse.Country;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Proposes trips found in the location history, see {@link TripDetector}. Accepting a proposal adds it as a trip,
+ * dismissing it keeps it from being proposed again.
+ * <p>
+ * Detection runs in the background on the day summaries after entries have been committed. Only the days whose home
+ * may have changed are detected again, proposals that overlap a trip or an accepted or dismissed proposal are skipped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TripProposalService {
+
+    // the range of DATE
+    private static final LocalDate BEGINNING = LocalDate.of(1000, 1, 1);
+    private static final LocalDate END = LocalDate.of(9999, 12, 31);
+    // marks a detection of the whole history
+    private static final LocalDate EVERYTHING = LocalDate.MIN;
+
+    private final LocationDaySummaryRepository locationDaySummaryRepository;
+    private final TripProposalRepository tripProposalRepository;
+    private final TripsRepository tripsRepository;
+    private final TripsService tripsService;
+    private final CountryResolver countryResolver;
+    private final TripProposalProperties tripProposalProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicReference<LocalDate> earliestChangedDay = new AtomicReference<>();
+    private final ExecutorService detector = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "trip-proposals"));
+
+    public List<TripProposalEntity> getProposals() {
+        return tripProposalRepository.findAllByStatusOrderByStart(TripProposalStatus.PROPOSED);
+    }
+
+    /**
+     * Add a proposal as trip, titled with the visited countries.
+     */
+    @Transactional
+    public TripEntity acceptProposal(long proposalId) {
+        final var proposal = findProposal(proposalId);
+        proposal.setStatus(TripProposalStatus.ACCEPTED);
+        return tripsService.addTrip(TripEntity.builder()
+                .start(proposal.getStart())
+                .end(proposal.getEnd())
+                .title(titleOf(proposal))
+                .build());
+    }
+
+    @Transactional
+    public void dismissProposal(long proposalId) {
+        findProposal(proposalId).setStatus(TripProposalStatus.DISMISSED);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        if (!event.days().isEmpty()) {
+            scheduleDetection(Collections.min(event.days()));
+        }
+    }
+
+    /**
+     * Detect the trips of the whole location history, in the background.
+     */
+    public void scheduleDetection() {
+        scheduleDetection(EVERYTHING);
+    }
+
+    private void scheduleDetection(LocalDate changedDay) {
+        final var previous = earliestChangedDay.getAndAccumulate(changedDay,
+                (current, changed) -> current == null || changed.isBefore(current) ? changed : current);
+        if (previous == null) {
+            detector.execute(() -> {
+                final var day = earliestChangedDay.getAndSet(null);
+                try {
+                    detectTrips(EVERYTHING.equals(day) ? null : day);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to detect trips: %s".formatted(e.getMessage()));
+                }
+            });
+        }
+    }
+
+    /**
+     * @param changedDay the earliest day with changed entries, null to detect the whole history
+     */
+    void detectTrips(LocalDate changedDay) {
+        // the home of these days, and with it their trips, may have changed
+        final var affectedFrom = changedDay == null ? BEGINNING : changedDay.minusDays(TripDetector.HOME_WINDOW_DAYS);
+        final var loadFrom = changedDay == null ? BEGINNING : affectedFrom.minusDays(TripDetector.HOME_WINDOW_DAYS);
+        final var days = locationDaySummaryRepository.findByDayBetween(loadFrom, END);
+        final var detectedTrips = new TripDetector(
+                tripProposalProperties.getAwayDistanceMeters(),
+                tripProposalProperties.getMinimumNights(),
+                tripProposalProperties.getMaxGapDays()
+        ).detect(days).stream()
+                .filter(trip -> !trip.end().isBefore(affectedFrom))
+                .toList();
+
+        final int proposed = transactionTemplate.execute(status -> {
+            tripProposalRepository.deleteAllByStatusAndEndGreaterThanEqual(TripProposalStatus.PROPOSED, affectedFrom);
+            final var trips = tripsRepository.findAll();
+            final var otherProposals = tripProposalRepository.findAllByEndGreaterThanEqual(loadFrom);
+
+            final var proposals = detectedTrips.stream()
+                    .filter(trip -> trips.stream().noneMatch(other -> overlap(trip, other.getStart(), other.getEnd())))
+                    .filter(trip -> otherProposals.stream().noneMatch(other -> overlap(trip, other.getStart(), other.getEnd())))
+                    .map(trip -> TripProposalEntity.builder()
+                            .start(trip.start())
+                            .end(trip.end())
+                            .countries(trip.countries().isEmpty() ? null : String.join(",", trip.countries()))
+                            .distanceMeters(trip.distanceMeters())
+                            .status(TripProposalStatus.PROPOSED)
+                            .build())
+                    .toList();
+            tripProposalRepository.saveAll(proposals);
+            return proposals.size();
+        });
+        log.info("Proposed %d trips from %s on.".formatted(proposed, affectedFrom));
+    }
+
+    private String titleOf(TripProposalEntity proposal) {
+        if (proposal.getCountries() == null) {
+            return "Trip";
+        }
+        final var names = Arrays.stream(proposal.getCountries().split(","))
+                .map(iso -> countryResolver.countryOfIso(iso).map(Country::name).orElse(iso))
+                .collect(Collectors.joining(", "));
+        return "Trip to %s".formatted(names);
+    }
+
+    private TripProposalEntity findProposal(long proposalId) {
+        return tripProposalRepository.findById(proposalId)
+                .filter(proposal -> proposal.getStatus() == TripProposalStatus.PROPOSED)
+                .orElseThrow(() -> new ThereaboutException(HttpStatus.NOT_FOUND,
+                        "Trip proposal with id %s not found".formatted(proposalId)));
+    }
+
+    private static boolean overlap(DetectedTrip trip, LocalDate start, LocalDate end) {
+        return !trip.start().isAfter(end) && !start.isAfter(trip.end());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        detector.shutdownNow();
+    }
+}
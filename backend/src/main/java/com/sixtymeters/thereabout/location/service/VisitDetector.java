@@ -0,0 +1,129 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationVisit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Finds stays in a chronological stream of entries. A stay is a run of entries that all lie within
+ * {@code radiusMeters} of its first entry and spans at least {@code minimumDwell}. Entries that belong to no stay
+ * make up the movement to the next one.
+ * <p>
+ * Only stays that have been left are reported, the entries after the last one can still turn into a stay with
+ * entries that are yet to come.
+ */
+final class VisitDetector {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private final double radiusMeters;
+    private final Duration minimumDwell;
+    private final Consumer<LocationVisit> consumer;
+    private final ArrayDeque<LocationHistoryEntity> candidate = new ArrayDeque<>();
+    private final ArrayDeque<LocationHistoryEntity> pending = new ArrayDeque<>();
+
+    private LocalDateTime movementStart;
+    private int movementPointCount;
+    private double movementDistanceMeters;
+    private boolean hasPreviousPosition;
+    private double previousLatitude;
+    private double previousLongitude;
+
+    /**
+     * @param previousVisit the visit before the first entry, if any, the first movement starts there
+     */
+    VisitDetector(double radiusMeters, Duration minimumDwell, LocationVisit previousVisit,
+                  Consumer<LocationVisit> consumer) {
+        this.radiusMeters = radiusMeters;
+        this.minimumDwell = minimumDwell;
+        this.consumer = consumer;
+        if (previousVisit != null) {
+            movementStart = previousVisit.departure();
+            moveTo(previousVisit.latitude(), previousVisit.longitude());
+        }
+    }
+
+    void accept(LocationHistoryEntity entry) {
+        pending.addLast(entry);
+        while (!pending.isEmpty()) {
+            process(pending.removeFirst());
+        }
+    }
+
+    private void process(LocationHistoryEntity entry) {
+        if (candidate.isEmpty() || distanceMeters(candidate.getFirst(), entry) <= radiusMeters) {
+            candidate.addLast(entry);
+            return;
+        }
+
+        final var dwell = Duration.between(candidate.getFirst().getTimestamp(), candidate.getLast().getTimestamp());
+        if (dwell.compareTo(minimumDwell) >= 0) {
+            reportStay();
+            candidate.addLast(entry);
+            return;
+        }
+
+        // the first entry was passing through, look for a stay from the next one on. The other entries are processed
+        // again before the pending ones, in a loop instead of recursively, a long run of them can't overflow the stack
+        pending.addFirst(entry);
+        while (candidate.size() > 1) {
+            pending.addFirst(candidate.removeLast());
+        }
+        addToMovement(candidate.removeFirst());
+    }
+
+    private void reportStay() {
+        double latitudeSum = 0;
+        double longitudeSum = 0;
+        for (LocationHistoryEntity entry : candidate) {
+            latitudeSum += entry.getLatitude();
+            longitudeSum += entry.getLongitude();
+        }
+        final double latitude = latitudeSum / candidate.size();
+        final double longitude = longitudeSum / candidate.size();
+        final var arrival = candidate.getFirst().getTimestamp();
+        final var departure = candidate.getLast().getTimestamp();
+        moveTo(latitude, longitude);
+
+        consumer.accept(new LocationVisit(latitude, longitude, arrival, departure, candidate.size(),
+                movementStart == null ? arrival : movementStart, movementPointCount, movementDistanceMeters));
+        candidate.clear();
+        movementStart = departure;
+        movementPointCount = 0;
+        movementDistanceMeters = 0;
+    }
+
+    private void addToMovement(LocationHistoryEntity entry) {
+        if (movementStart == null) {
+            movementStart = entry.getTimestamp();
+        }
+        movementPointCount++;
+        moveTo(entry.getLatitude(), entry.getLongitude());
+    }
+
+    private void moveTo(double latitude, double longitude) {
+        if (hasPreviousPosition) {
+            movementDistanceMeters += distanceMeters(previousLatitude, previousLongitude, latitude, longitude);
+        }
+        hasPreviousPosition = true;
+        previousLatitude = latitude;
+        previousLongitude = longitude;
+    }
+
+    private static double distanceMeters(LocationHistoryEntity from, LocationHistoryEntity to) {
+        return distanceMeters(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+
+    static double distanceMeters(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        final double latitudeDelta = Math.toRadians(toLatitude - fromLatitude);
+        final double longitudeDelta = Math.toRadians(toLongitude - fromLongitude);
+        final double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(1, a)));
+    }
+}
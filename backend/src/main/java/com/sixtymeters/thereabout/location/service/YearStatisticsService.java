@@ -0,0 +1,130 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.CountryDayRepository;
+import com.sixtymeters.thereabout.location.data.CountryDayRepository.CountryDay;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics.ContinentDays;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics.CountryDays;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.recurse.geocoding.reverse.Country;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Statistics per calendar year, computed from the per-day rollups {@code country_day} and
+ * {@code location_day_summary} and kept in memory until entries of the year change.
+ * <p>
+ * Which countries are new in a year depends on all years before, so a change invalidates the years of the changed
+ * days and all later ones. Years read within a transaction aren't cached, they may contain uncommitted entries.
+ */
+@Service
+@RequiredArgsConstructor
+public class YearStatisticsService {
+
+    private static final String UNKNOWN_CONTINENT = "";
+
+    private final CountryDayRepository countryDayRepository;
+    private final LocationDaySummaryRepository locationDaySummaryRepository;
+    private final CountryResolver countryResolver;
+    private final Map<Integer, YearStatistics> years = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The statistics of all years with location history within a range of years, in chronological order.
+     *
+     * @param from inclusive
+     * @param to   inclusive
+     */
+    public List<YearStatistics> getYearStatistics(int from, int to) {
+        final var dayRange = locationDaySummaryRepository.findDayRange();
+        if (dayRange.isEmpty()) {
+            return List.of();
+        }
+        final int firstYear = Math.max(from, dayRange.get().first().getYear());
+        final int lastYear = Math.min(to, dayRange.get().last().getYear());
+        return IntStream.rangeClosed(firstYear, lastYear)
+                .mapToObj(this::getYear)
+                .filter(year -> year.daysWithLocationHistory() > 0)
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationHistoryChanged(LocationHistoryChangedEvent event) {
+        if (event.days().isEmpty()) {
+            return;
+        }
+        final int firstChangedYear = Collections.min(event.days()).getYear();
+        synchronized (years) {
+            generation.incrementAndGet();
+            years.keySet().removeIf(year -> year >= firstChangedYear);
+        }
+    }
+
+    private YearStatistics getYear(int year) {
+        final var cached = years.get(year);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return calculateYear(year);
+        }
+
+        final long generationBeforeRead = generation.get();
+        final var statistics = calculateYear(year);
+        synchronized (years) {
+            // a change during the calculation may have come too early to drop what was just calculated
+            if (generation.get() == generationBeforeRead) {
+                years.put(year, statistics);
+            }
+        }
+        return statistics;
+    }
+
+    private YearStatistics calculateYear(int year) {
+        final var firstDay = LocalDate.of(year, 1, 1);
+        final var lastDay = LocalDate.of(year, 12, 31);
+        final var totals = locationDaySummaryRepository.findTotals(firstDay, lastDay);
+
+        final Map<String, Integer> daysPerCountry = new HashMap<>();
+        final Map<String, Set<LocalDate>> daysPerContinent = new HashMap<>();
+        for (CountryDay countryDay : countryDayRepository.findByDayBetween(firstDay, lastDay)) {
+            daysPerCountry.merge(countryDay.country(), 1, Integer::sum);
+            daysPerContinent.computeIfAbsent(continentOf(countryDay.country()), continent -> new HashSet<>())
+                    .add(countryDay.day());
+        }
+
+        final var countries = new ArrayList<CountryDays>();
+        daysPerCountry.forEach((iso, days) -> {
+            final var country = countryResolver.countryOfIso(iso);
+            countries.add(new CountryDays(iso, country.map(Country::name).orElse(iso), continentOf(iso), days));
+        });
+        countries.sort(Comparator.comparingInt(CountryDays::days).reversed().thenComparing(CountryDays::countryIsoCode));
+
+        final var continents = new ArrayList<ContinentDays>();
+        daysPerContinent.forEach((continent, days) -> continents.add(new ContinentDays(continent, days.size())));
+        continents.sort(Comparator.comparingInt(ContinentDays::days).reversed().thenComparing(ContinentDays::continent));
+
+        return new YearStatistics(year, totals.days(), totals.distanceMeters(), List.copyOf(countries),
+                List.copyOf(continents), countryDayRepository.findFirstVisitedBetween(firstDay, lastDay));
+    }
+
+    private String continentOf(String iso) {
+        return countryResolver.countryOfIso(iso).map(Country::continent).orElse(UNKNOWN_CONTINENT);
+    }
+}
@@ -1,6 +0,0 @@
-package com.sixtymeters.thereabout.location.service.importer;
-
-import java.util.List;
-
-public record GoogleLocationHistory(List<GoogleLocationEntry> locations) {
-}
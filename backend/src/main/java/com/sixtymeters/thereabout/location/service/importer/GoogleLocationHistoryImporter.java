@@ -1,40 +1,111 @@
 package com.sixtymeters.thereabout.location.service.importer;
 
 import com.fatboyindustrial.gsonjavatime.Converters;
+import com.google.common.io.CountingInputStream;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
 import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
 import com.sixtymeters.thereabout.config.ThereaboutException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
+/**
+ * Streams the {@code locations} array of a Google Takeout Records.json file one record at a time.
+ */
 @Slf4j
 @Service
-public class GoogleLocationHistoryImporter {
+public class GoogleLocationHistoryImporter implements StreamingLocationImporter {
 
-    public List<LocationHistoryEntity> importLocationHistory(final File file) {
-        final Gson gson = Converters.registerZonedDateTime(new GsonBuilder()).create();
-        try (Reader reader = new FileReader(file)) {
-            List<GoogleLocationEntry> locationHistory = gson.fromJson(reader, GoogleLocationHistory.class).locations();
-            if (locationHistory == null || locationHistory.isEmpty()) {
+    private static final String LOCATIONS = "locations";
+
+    private final Gson gson = Converters.registerZonedDateTime(new GsonBuilder()).create();
+
+    /**
+     * Parse the given file and hand the entries to the consumer in chunks of at most {@code chunkSize} entries.
+     *
+     * @return the total number of parsed entries
+     */
+    public long importLocationHistory(final File file, final int chunkSize, final Consumer<LocationHistoryChunk> chunkConsumer) {
+        return importLocationHistory(file, 0, chunkSize, chunkConsumer);
+    }
+
+    /**
+     * Skipped records are passed over with {@link JsonReader#skipValue()}, without being mapped.
+     */
+    @Override
+    public long importLocationHistory(final File file, final long skipRecords, final int chunkSize,
+                                      final Consumer<LocationHistoryChunk> chunkConsumer) {
+        final long totalBytes = file.length();
+        try (CountingInputStream countingStream = new CountingInputStream(new FileInputStream(file));
+             JsonReader reader = new JsonReader(new InputStreamReader(countingStream, StandardCharsets.UTF_8))) {
+            long parsedEntries = 0;
+            long records = 0;
+            List<LocationHistoryEntity> chunk = new ArrayList<>(chunkSize);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!LOCATIONS.equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (records++ < skipRecords) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    GoogleLocationEntry entry = gson.fromJson(reader, GoogleLocationEntry.class);
+                    chunk.add(mapToGenericLocationHistoryEntry(entry));
+                    if (chunk.size() >= chunkSize) {
+                        parsedEntries += chunk.size();
+                        chunkConsumer.accept(new LocationHistoryChunk(chunk, records, countingStream.getCount(), totalBytes));
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+
+            if (!chunk.isEmpty()) {
+                parsedEntries += chunk.size();
+                chunkConsumer.accept(new LocationHistoryChunk(chunk, records, totalBytes, totalBytes));
+            }
+
+            if (records == 0) {
                 throw new ThereaboutException(HttpStatusCode.valueOf(400),
                         "There is not location data in file '%s'".formatted(file.getName()));
             }
-            log.info("Successfully loaded %d location entries".formatted(locationHistory.size()));
-            return locationHistory.stream()
-                    .map(this::mapToGenericLocationHistoryEntry)
-                    .toList();
-        } catch (IOException e) {
+            if (skipRecords > 0) {
+                log.info("Skipped %d location entries that were imported before".formatted(Math.min(skipRecords, records)));
+            }
+            log.info("Successfully streamed %d location entries".formatted(parsedEntries));
+            return parsedEntries;
+        } catch (CancellationException e) {
+            // extends IllegalStateException, but means the import has been stopped, not that the file is broken
+            throw e;
+        } catch (IOException | JsonParseException | IllegalStateException e) {
             throw new ThereaboutException(HttpStatusCode.valueOf(400),
                     "Failed to read or parse the file from '%s' due to %s".formatted(file.getName(), e.getMessage()));
         }
     }
 
+    @Override
+    public LocationImportFormat getFormat() {
+        return LocationImportFormat.GOOGLE_RECORDS;
+    }
+
     private LocationHistoryEntity mapToGenericLocationHistoryEntry(GoogleLocationEntry entry) {
         return LocationHistoryEntity.builder()
                 .timestamp(entry.timestamp().toLocalDateTime())
@@ -0,0 +1,206 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.google.common.io.CountingInputStream;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Streams a Timeline.json file exported from the on-device Google Maps Timeline. The file has no flat list of
+ * locations, so every location it contains becomes an entry:
+ * <ul>
+ *     <li>each point of a segment's {@code timelinePath}</li>
+ *     <li>the place of a visit, at its start and end time</li>
+ *     <li>the start and end of an activity</li>
+ *     <li>each {@code position} in {@code rawSignals}, the only points with accuracy, altitude and speed</li>
+ * </ul>
+ * Segments are read one at a time, even a year of timeline never has to fit into memory.
+ */
+@Slf4j
+@Service
+public class GoogleTimelineImporter implements StreamingLocationImporter {
+
+    private static final String SEMANTIC_SEGMENTS = "semanticSegments";
+    private static final String RAW_SIGNALS = "rawSignals";
+    private static final String TIMELINE_PATH_SENSOR = "TIMELINE_PATH";
+    private static final String VISIT_SENSOR = "VISIT";
+    private static final String ACTIVITY_SENSOR = "ACTIVITY";
+
+    private final Gson gson = new Gson();
+
+    @Override
+    public long importLocationHistory(final File file, final long skipRecords, final int chunkSize,
+                                      final Consumer<LocationHistoryChunk> chunkConsumer) {
+        final long totalBytes = file.length();
+        try (CountingInputStream countingStream = new CountingInputStream(new FileInputStream(file));
+             JsonReader reader = new JsonReader(new InputStreamReader(countingStream, StandardCharsets.UTF_8))) {
+            final var chunker = new Chunker(skipRecords, chunkSize, chunkConsumer, countingStream, totalBytes);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case SEMANTIC_SEGMENTS -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            addSegment(gson.fromJson(reader, GoogleTimelineSegment.class), chunker);
+                        }
+                        reader.endArray();
+                    }
+                    case RAW_SIGNALS -> {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            addRawSignal(gson.fromJson(reader, GoogleTimelineRawSignal.class), chunker);
+                        }
+                        reader.endArray();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            chunker.flush();
+
+            if (chunker.records == 0) {
+                throw new ThereaboutException(HttpStatusCode.valueOf(400),
+                        "There is not location data in file '%s'".formatted(file.getName()));
+            }
+            log.info("Successfully streamed %d location entries from Google Timeline".formatted(chunker.parsedEntries));
+            return chunker.parsedEntries;
+        } catch (CancellationException e) {
+            // extends IllegalStateException, but means the import has been stopped, not that the file is broken
+            throw e;
+        } catch (IOException | JsonParseException | IllegalStateException | IllegalArgumentException | DateTimeException e) {
+            throw new ThereaboutException(HttpStatusCode.valueOf(400),
+                    "Failed to read or parse the file from '%s' due to %s".formatted(file.getName(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public LocationImportFormat getFormat() {
+        return LocationImportFormat.GOOGLE_TIMELINE;
+    }
+
+    private void addSegment(GoogleTimelineSegment segment, Chunker chunker) {
+        if (segment.timelinePath() != null) {
+            for (GoogleTimelineSegment.PathPoint point : segment.timelinePath()) {
+                chunker.add(() -> entryAt(point.point(), point.time(), TIMELINE_PATH_SENSOR));
+            }
+        }
+        if (segment.visit() != null && segment.visit().topCandidate() != null && segment.visit().topCandidate().placeLocation() != null) {
+            final var place = segment.visit().topCandidate().placeLocation().latLng();
+            chunker.add(() -> entryAt(place, segment.startTime(), VISIT_SENSOR));
+            chunker.add(() -> entryAt(place, segment.endTime(), VISIT_SENSOR));
+        }
+        if (segment.activity() != null) {
+            if (segment.activity().start() != null) {
+                chunker.add(() -> entryAt(segment.activity().start().latLng(), segment.startTime(), ACTIVITY_SENSOR));
+            }
+            if (segment.activity().end() != null) {
+                chunker.add(() -> entryAt(segment.activity().end().latLng(), segment.endTime(), ACTIVITY_SENSOR));
+            }
+        }
+    }
+
+    private void addRawSignal(GoogleTimelineRawSignal signal, Chunker chunker) {
+        final var position = signal.position();
+        if (position == null) {
+            return;
+        }
+        chunker.add(() -> {
+            final var entry = entryAt(position.latLng(), position.timestamp(), position.source());
+            entry.setHorizontalAccuracy(position.accuracyMeters() == null ? 0 : position.accuracyMeters());
+            entry.setAltitude(position.altitudeMeters() == null ? 0 : (int) Math.round(position.altitudeMeters()));
+            entry.setVelocity(position.speedMetersPerSecond() == null ? 0 : (int) Math.round(position.speedMetersPerSecond()));
+            return entry;
+        });
+    }
+
+    private static LocationHistoryEntity entryAt(String latLng, String time, String sensorSource) {
+        if (latLng == null || time == null) {
+            throw new IllegalArgumentException("a location without coordinates or time");
+        }
+        final var coordinates = latLng.replace("geo:", "").replace("°", "").split(",");
+        if (coordinates.length != 2) {
+            throw new IllegalArgumentException("'%s' is not a coordinate".formatted(latLng));
+        }
+        return LocationHistoryEntity.builder()
+                .timestamp(toUtc(time))
+                .latitude(Double.parseDouble(coordinates[0].strip()))
+                .longitude(Double.parseDouble(coordinates[1].strip()))
+                .source(LocationHistorySource.GOOGLE_TIMELINE_IMPORT)
+                .sensorSource(sensorSource)
+                .build();
+    }
+
+    private static LocalDateTime toUtc(String time) {
+        return OffsetDateTime.parse(time).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /**
+     * Counts every location of the file, skips the already imported ones and emits the others in chunks.
+     * Entries are only created for locations that aren't skipped.
+     */
+    private static class Chunker {
+        private final long skipRecords;
+        private final int chunkSize;
+        private final Consumer<LocationHistoryChunk> chunkConsumer;
+        private final CountingInputStream countingStream;
+        private final long totalBytes;
+        private List<LocationHistoryEntity> chunk;
+        private long records;
+        private long parsedEntries;
+
+        private Chunker(long skipRecords, int chunkSize, Consumer<LocationHistoryChunk> chunkConsumer,
+                        CountingInputStream countingStream, long totalBytes) {
+            this.skipRecords = skipRecords;
+            this.chunkSize = chunkSize;
+            this.chunkConsumer = chunkConsumer;
+            this.countingStream = countingStream;
+            this.totalBytes = totalBytes;
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        private void add(Supplier<LocationHistoryEntity> entry) {
+            if (records++ < skipRecords) {
+                return;
+            }
+            chunk.add(entry.get());
+            if (chunk.size() >= chunkSize) {
+                emit(countingStream.getCount());
+            }
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                emit(totalBytes);
+            }
+        }
+
+        private void emit(long bytesRead) {
+            parsedEntries += chunk.size();
+            chunkConsumer.accept(new LocationHistoryChunk(chunk, records, bytesRead, totalBytes));
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * An entry of {@code rawSignals} in an on-device Timeline.json export. Only {@code position} signals carry a
+ * location, wifi scans and activity records are ignored.
+ */
+public record GoogleTimelineRawSignal(Position position) {
+
+    public record Position(@SerializedName("LatLng") String latLng, Integer accuracyMeters, Double altitudeMeters,
+                           String source, String timestamp, Double speedMetersPerSecond) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import java.util.List;
+
+/**
+ * An entry of {@code semanticSegments} in an on-device Timeline.json export. Either a visit, an activity or a
+ * stretch of {@code timelinePath}. Coordinates are strings like {@code "47.3769°, 8.5417°"}.
+ */
+public record GoogleTimelineSegment(String startTime, String endTime, List<PathPoint> timelinePath, Visit visit, Activity activity) {
+
+    public record PathPoint(String point, String time) {
+    }
+
+    public record Visit(Candidate topCandidate) {
+    }
+
+    public record Candidate(String semanticType, PlaceLocation placeLocation) {
+    }
+
+    public record PlaceLocation(String latLng) {
+    }
+
+    public record Activity(PlaceLocation start, PlaceLocation end) {
+    }
+}
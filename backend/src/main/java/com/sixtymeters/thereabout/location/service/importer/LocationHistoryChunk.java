@@ -0,0 +1,16 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+
+import java.util.List;
+
+/**
+ * A fixed-size slice of parsed location history entries, handed from a streaming importer to the persistence stage.
+ *
+ * @param entries     the parsed entries of this chunk
+ * @param recordsRead how many records of the source file have been consumed after this chunk, including skipped ones
+ * @param bytesRead   how many bytes of the source file have been consumed after parsing this chunk
+ * @param totalBytes  the size of the source file in bytes
+ */
+public record LocationHistoryChunk(List<LocationHistoryEntity> entries, long recordsRead, long bytesRead, long totalBytes) {
+}
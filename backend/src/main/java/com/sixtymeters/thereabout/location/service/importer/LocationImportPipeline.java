@@ -0,0 +1,244 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.sixtymeters.thereabout.client.service.ImportProgressService;
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkWriter;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
+import com.sixtymeters.thereabout.location.service.LocationIngestFilter;
+import com.sixtymeters.thereabout.location.service.LocationIngestFilterReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs a location import as three stages connected by bounded queues: parse → filter and geocode → persist.
+ * Each stage runs on its own virtual thread, geocoding spreads every chunk over all cores and the writer
+ * persists with multi-row inserts, so parsing, CPU-bound enrichment and database I/O overlap.
+ * Per-stage timings are published as {@value #STAGE_TIMER} and logged when the import finishes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocationImportPipeline {
+
+    public static final String STAGE_TIMER = "thereabout.location.import.stage";
+    private static final int CHUNK_SIZE = 10000;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final LocationHistoryChunk END_OF_STREAM = new LocationHistoryChunk(List.of(), 0, 0, 0);
+
+    private final List<StreamingLocationImporter> locationImporters;
+    private final LocationHistoryBulkWriter locationHistoryBulkWriter;
+    private final LocationIngestFilter locationIngestFilter;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportProgressService importProgressService;
+
+    /**
+     * Import a location history export.
+     *
+     * @param file           the file to import
+     * @param format         the format of the file
+     * @param skipRecords    number of records at the start of the file that were persisted by an earlier run
+     * @param enricher       computes derived fields (e.g. the country) of an entry; called concurrently
+     * @param onChunkWritten called on the writer thread within the transaction that persists the chunk, so a
+     *                       checkpoint written there is committed together with the entries
+     * @return the number of imported entries, entries that already existed are not counted
+     */
+    public long importLocations(File file, LocationImportFormat format, long skipRecords, Consumer<LocationHistoryEntity> enricher,
+                                Consumer<LocationHistoryChunk> onChunkWritten) {
+        final var importer = locationImporters.stream()
+                .filter(locationImporter -> locationImporter.getFormat() == format)
+                .findFirst()
+                .orElseThrow(() -> new ThereaboutException(HttpStatusCode.valueOf(400),
+                        "No importer found for location format: %s".formatted(format)));
+        final var run = new PipelineRun();
+
+        try (ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor()) {
+            // the chunk callback reports the progress of the import job from the writer thread
+            final Future<?> geocoder = stages.submit(importProgressService.withCurrentJob(() -> run.geocodeStage(enricher)));
+            final Future<?> writer = stages.submit(importProgressService.withCurrentJob(() -> run.writeStage(onChunkWritten)));
+
+            try {
+                final long started = System.nanoTime();
+                importer.importLocationHistory(file, skipRecords, CHUNK_SIZE, chunk -> {
+                    run.parse.record(chunk, System.nanoTime() - started - run.parse.busyNanos.get() - run.parse.blockedNanos.get());
+                    run.handOver(run.parsed, chunk, run.parse);
+                    if (run.failure.get() != null) {
+                        throw new CancellationException("A later import stage failed");
+                    }
+                });
+            } catch (RuntimeException e) {
+                run.fail(e);
+            } finally {
+                run.handOver(run.parsed, END_OF_STREAM, run.parse);
+            }
+
+            awaitStage(geocoder, run);
+            awaitStage(writer, run);
+        }
+
+        run.logSummary(file);
+        if (run.failure.get() != null) {
+            throw run.failure.get() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new ThereaboutException(HttpStatusCode.valueOf(500),
+                    "Import of '%s' failed: %s".formatted(file.getName(), run.failure.get().getMessage()));
+        }
+        return run.inserted.get();
+    }
+
+    private static void awaitStage(Future<?> stage, PipelineRun run) {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            run.fail(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+        }
+    }
+
+    private class PipelineRun {
+        private final BlockingQueue<LocationHistoryChunk> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final BlockingQueue<LocationHistoryChunk> geocoded = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong inserted = new AtomicLong();
+        private final StageStatistics parse = new StageStatistics("parse");
+        private final StageStatistics geocode = new StageStatistics("geocode");
+        private final StageStatistics write = new StageStatistics("write");
+        // only touched by the geocode stage, read once it has finished
+        private LocationIngestFilterReport filterReport = LocationIngestFilterReport.NONE;
+
+        private void geocodeStage(Consumer<LocationHistoryEntity> enricher) {
+            try {
+                LocationHistoryChunk chunk;
+                while ((chunk = take(parsed, geocode)) != END_OF_STREAM) {
+                    final long started = System.nanoTime();
+                    final var filtered = locationIngestFilter.filter(chunk.entries());
+                    if (!filtered.report().isEmpty()) {
+                        log.info("Filtered a chunk of %d entries: %s.".formatted(chunk.entries().size(), filtered.report()));
+                    }
+                    filterReport = filterReport.plus(filtered.report());
+                    final var filteredChunk = new LocationHistoryChunk(filtered.entries(), chunk.recordsRead(), chunk.bytesRead(), chunk.totalBytes());
+                    filteredChunk.entries().parallelStream().forEach(enricher);
+                    geocode.record(chunk, System.nanoTime() - started);
+                    handOver(geocoded, filteredChunk, geocode);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            } finally {
+                handOver(geocoded, END_OF_STREAM, geocode);
+            }
+        }
+
+        private void writeStage(Consumer<LocationHistoryChunk> onChunkWritten) {
+            try {
+                LocationHistoryChunk chunk;
+                while ((chunk = take(geocoded, write)) != END_OF_STREAM) {
+                    final long started = System.nanoTime();
+                    final var writtenChunk = chunk;
+                    transactionTemplate.executeWithoutResult(status -> {
+                        inserted.addAndGet(locationHistoryBulkWriter.insertAll(writtenChunk.entries()));
+                        onChunkWritten.accept(writtenChunk);
+                    });
+                    write.record(chunk, System.nanoTime() - started);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Blocks until the queue has room. Gives up (dropping the chunk) once another stage has failed, so that a
+         * failing consumer can't leave its producer blocked forever. The end-of-stream marker is always delivered.
+         */
+        private void handOver(BlockingQueue<LocationHistoryChunk> queue, LocationHistoryChunk chunk, StageStatistics producer) {
+            final long started = System.nanoTime();
+            try {
+                while (!queue.offer(chunk, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null && chunk != END_OF_STREAM) {
+                        return;
+                    }
+                    if (failure.get() != null) {
+                        queue.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } finally {
+                producer.blockedNanos.addAndGet(System.nanoTime() - started);
+            }
+        }
+
+        private LocationHistoryChunk take(BlockingQueue<LocationHistoryChunk> queue, StageStatistics consumer) {
+            final long started = System.nanoTime();
+            try {
+                LocationHistoryChunk chunk;
+                do {
+                    chunk = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } while (chunk == null);
+                return failure.get() != null ? END_OF_STREAM : chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                return END_OF_STREAM;
+            } finally {
+                consumer.blockedNanos.addAndGet(System.nanoTime() - started);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            if (failure.compareAndSet(null, throwable)) {
+                log.error("Location import pipeline failed, stopping all stages.", throwable);
+            }
+        }
+
+        private void logSummary(File file) {
+            log.info("Location import of '%s' finished, skipped %d already existing entries, %s. %s | %s | %s".formatted(
+                    file.getName(), write.entries.get() - inserted.get(), filterReport, parse, geocode, write));
+        }
+    }
+
+    private class StageStatistics {
+        private final String stage;
+        private final Timer timer;
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        private StageStatistics(String stage) {
+            this.stage = stage;
+            this.timer = Timer.builder(STAGE_TIMER)
+                    .description("Time a location import stage spends working on one chunk")
+                    .tag("stage", stage)
+                    .register(meterRegistry);
+        }
+
+        private void record(LocationHistoryChunk chunk, long nanos) {
+            entries.addAndGet(chunk.entries().size());
+            busyNanos.addAndGet(nanos);
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            final double busySeconds = busyNanos.get() / 1E9;
+            return "%s: %d entries, %.1fs busy (%.0f entries/s), %.1fs waiting".formatted(
+                    stage, entries.get(), busySeconds, busySeconds > 0 ? entries.get() / busySeconds : 0, blockedNanos.get() / 1E9);
+        }
+    }
+}
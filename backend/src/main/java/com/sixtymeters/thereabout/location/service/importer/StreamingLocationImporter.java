@@ -0,0 +1,26 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.sixtymeters.thereabout.location.data.LocationImportFormat;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * Reads the location points of an export file one at a time and hands them on in chunks, so memory use only
+ * depends on the chunk size and not on the size of the export.
+ */
+public interface StreamingLocationImporter {
+
+    /**
+     * Parse the given file and hand the entries to the consumer in chunks of at most {@code chunkSize} entries.
+     * The first {@code skipRecords} location points are skipped, to resume an import that already persisted them.
+     *
+     * @return the number of parsed entries, skipped records are not counted
+     */
+    long importLocationHistory(File file, long skipRecords, int chunkSize, Consumer<LocationHistoryChunk> chunkConsumer);
+
+    /**
+     * @return the file format this importer reads
+     */
+    LocationImportFormat getFormat();
+}
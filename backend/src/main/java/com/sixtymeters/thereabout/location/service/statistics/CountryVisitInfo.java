@@ -2,7 +2,6 @@ package com.sixtymeters.thereabout.location.service.statistics;
 
 import lombok.Getter;
 
-import java.sql.Date;
 import java.time.LocalDate;
 
 @Getter
@@ -12,10 +11,10 @@ public final class CountryVisitInfo {
     private final LocalDate firstVisit;
     private final LocalDate lastVisit;
 
-    public CountryVisitInfo(String country, Long dayCount, Date firstVisit, Date lastVisit) {
+    public CountryVisitInfo(String country, Long dayCount, LocalDate firstVisit, LocalDate lastVisit) {
         this.country = country;
         this.dayCount = dayCount;
-        this.firstVisit = firstVisit.toLocalDate();
-        this.lastVisit = lastVisit.toLocalDate();
+        this.firstVisit = firstVisit;
+        this.lastVisit = lastVisit;
     }
 }
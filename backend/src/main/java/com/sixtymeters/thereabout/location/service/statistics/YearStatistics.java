@@ -0,0 +1,26 @@
+package com.sixtymeters.thereabout.location.service.statistics;
+
+import java.util.List;
+
+/**
+ * The travels of one calendar year.
+ *
+ * @param daysWithLocationHistory the number of days with active entries
+ * @param distanceMeters          the distance of all days of the year
+ * @param countries               the days spent per country, most days first
+ * @param continents              the days spent per continent, most days first, a day may count for several
+ * @param newCountries            the ISO codes of the countries visited for the first time, in alphabetical order
+ */
+public record YearStatistics(int year,
+                             int daysWithLocationHistory,
+                             double distanceMeters,
+                             List<CountryDays> countries,
+                             List<ContinentDays> continents,
+                             List<String> newCountries) {
+
+    public record CountryDays(String countryIsoCode, String countryName, String continent, int days) {
+    }
+
+    public record ContinentDays(String continent, int days) {
+    }
+}
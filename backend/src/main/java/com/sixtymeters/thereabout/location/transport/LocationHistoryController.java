@@ -1,24 +1,51 @@
 package com.sixtymeters.thereabout.location.transport;
 
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.config.AuthorizationService;
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.service.LocationDaySummaryService;
+import com.sixtymeters.thereabout.location.service.LocationHeatmapService;
 import com.sixtymeters.thereabout.location.service.LocationHistoryService;
+import com.sixtymeters.thereabout.location.service.LocationIngestBatchService;
+import com.sixtymeters.thereabout.location.service.LocationVisitService;
 import com.sixtymeters.thereabout.generated.api.LocationApi;
 import com.sixtymeters.thereabout.generated.model.GenAddGeoJsonLocation200Response;
 import com.sixtymeters.thereabout.generated.model.GenAddGeoJsonLocationRequest;
+import com.sixtymeters.thereabout.generated.model.GenGeoJsonLocation;
+import com.sixtymeters.thereabout.generated.model.GenHeatmapCell;
+import com.sixtymeters.thereabout.generated.model.GenHeatmapTile;
+import com.sixtymeters.thereabout.generated.model.GenLocationBulkOperation;
+import com.sixtymeters.thereabout.generated.model.GenLocationBulkResult;
+import com.sixtymeters.thereabout.generated.model.GenLocationDaySummary;
 import com.sixtymeters.thereabout.generated.model.GenLocationHistoryEntry;
+import com.sixtymeters.thereabout.generated.model.GenLocationVisit;
 import com.sixtymeters.thereabout.generated.model.GenSparseLocationHistoryEntry;
+import com.sixtymeters.thereabout.location.data.BoundingBox;
+import com.sixtymeters.thereabout.location.data.LocationHistorySelection;
 import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationTrack;
 import com.sixtymeters.thereabout.location.transport.mapper.LocationHistoryMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Slf4j
 @RestController
@@ -27,19 +54,61 @@ public class LocationHistoryController implements LocationApi {
 
     private final LocationHistoryService locationHistoryService;
     private final AuthorizationService authorizationService;
+    private final LocationIngestBatchService locationIngestBatchService;
+    private final LocationHeatmapService locationHeatmapService;
+    private final LocationDaySummaryService locationDaySummaryService;
+    private final LocationVisitService locationVisitService;
+    private final DataVersionService dataVersionService;
+    private final JsonMapper jsonMapper;
+    private final HttpServletRequest request;
     private static final LocationHistoryMapper LOCATION_HISTORY_MAPPER = LocationHistoryMapper.INSTANCE;
+    private static final int DEFAULT_SPARSE_MAX_POINTS = 10_000;
 
-    @Transactional
     @Override
-    public ResponseEntity<GenAddGeoJsonLocation200Response> addGeoJsonLocation(String authorization, GenAddGeoJsonLocationRequest genAddGeoJsonLocationRequest) {
+    public ResponseEntity<GenAddGeoJsonLocation200Response> addGeoJsonLocation(String authorization, Optional<String> idempotencyKey,
+                                                                                 GenAddGeoJsonLocationRequest genAddGeoJsonLocationRequest) {
         authorizationService.isAuthorised(authorization);
-        log.info("Received GeoJson location data via HTTP Endpoint /backend/api/v1/location/add-geojson-location");
 
-        genAddGeoJsonLocationRequest.getLocations().stream()
+        final var batchKey = idempotencyKey
+                .map(LocationIngestBatchService::batchKeyOfIdempotencyKey)
+                .orElseGet(() -> LocationIngestBatchService.batchKeyOfContent(jsonMapper.writeValueAsBytes(genAddGeoJsonLocationRequest)));
+        final var features = Optional.ofNullable(genAddGeoJsonLocationRequest.getLocations()).orElse(List.of());
+        final var validEntries = features.stream()
+                .filter(LocationHistoryController::isValidPointFeature)
                 .map(LOCATION_HISTORY_MAPPER::map)
-                .forEach(locationHistoryService::createLocationHistoryEntry);
+                .toList();
+        final var result = locationIngestBatchService.ingest(batchKey, validEntries, features.size() - validEntries.size());
+        if (result.replayed()) {
+            log.info("Received a replay of a batch of %d GeoJson locations, nothing stored.".formatted(features.size()));
+        } else {
+            log.info("Received %d GeoJson locations: %d stored (%d ignored), %d duplicates, %d rejected, %d dropped."
+                    .formatted(features.size(), result.accepted(), result.ignored(), result.duplicates(), result.rejected(),
+                            result.dropped()));
+        }
+
+        return ResponseEntity.ok(GenAddGeoJsonLocation200Response.builder()
+                .result("ok")
+                .accepted(result.accepted())
+                .duplicates(result.duplicates())
+                .rejected(result.rejected())
+                .ignored(result.ignored())
+                .dropped(result.dropped())
+                .replayed(result.replayed())
+                .build());
+    }
 
-        return ResponseEntity.ok(GenAddGeoJsonLocation200Response.builder().result("ok").build());
+    private static boolean isValidPointFeature(GenGeoJsonLocation feature) {
+        if (feature == null || feature.getGeometry() == null || feature.getProperties() == null
+                || feature.getProperties().getTimestamp() == null) {
+            return false;
+        }
+        final var coordinates = feature.getGeometry().getCoordinates();
+        if (coordinates == null || coordinates.size() < 2 || coordinates.get(0) == null || coordinates.get(1) == null) {
+            return false;
+        }
+        final double longitude = coordinates.get(0).doubleValue();
+        final double latitude = coordinates.get(1).doubleValue();
+        return Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
     }
 
     @Override
@@ -61,31 +130,183 @@ public class LocationHistoryController implements LocationApi {
     }
 
     @Override
-    public ResponseEntity<List<GenLocationHistoryEntry>> getLocations(Optional<LocalDate> from, Optional<LocalDate> to) {
-        final var filteredLocationHistory =  locationHistoryService.getLocationHistory(
-                from.orElse(LocalDate.now().minusYears(100L)),
-                to.orElse(LocalDate.now().plusYears(100L))
+    public ResponseEntity<GenLocationBulkResult> applyLocationBulkOperation(GenLocationBulkOperation genLocationBulkOperation) {
+        final var selection = new LocationHistorySelection(
+                LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(genLocationBulkOperation.getFrom()),
+                LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(genLocationBulkOperation.getTo()),
+                mapToBoundingBox(genLocationBulkOperation),
+                genLocationBulkOperation.getDeviceTag(),
+                genLocationBulkOperation.getHorizontalAccuracyAbove()
         );
+        final var result = switch (genLocationBulkOperation.getAction()) {
+            case IGNORE -> locationHistoryService.ignoreLocationHistoryEntries(selection);
+            case DELETE -> locationHistoryService.deleteLocationHistoryEntries(selection);
+        };
 
-        final var locationHistory = filteredLocationHistory.stream()
+        return ResponseEntity.ok(GenLocationBulkResult.builder()
+                .affectedEntries(result.affectedEntries())
+                .affectedDays(result.affectedDays())
+                .build());
+    }
+
+    private static BoundingBox mapToBoundingBox(GenLocationBulkOperation operation) {
+        final var edges = Stream.of(operation.getSouth(), operation.getWest(), operation.getNorth(), operation.getEast())
+                .filter(Objects::nonNull)
+                .count();
+        if (edges == 0) {
+            return null;
+        }
+        if (edges < 4) {
+            throw new ThereaboutException(HttpStatus.BAD_REQUEST, "A bounding box needs all four edges");
+        }
+        return new BoundingBox(operation.getSouth(), operation.getWest(), operation.getNorth(), operation.getEast());
+    }
+
+    @Override
+    public ResponseEntity<List<GenLocationHistoryEntry>> getLocations(Optional<LocalDate> from, Optional<LocalDate> to,
+                                                                      Optional<String> ifNoneMatch) {
+        final var fromDate = from.orElse(LocalDate.now().minusYears(100L));
+        final var toDate = to.orElse(LocalDate.now().plusYears(100L));
+        final var etag = dataVersionService.etag(List.of(DataDomain.LOCATION), fromDate, toDate, negotiatedMediaType());
+        if (DataVersionService.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        final var locationHistory = locationHistoryService.getLocationHistory(fromDate, toDate).stream()
                 .map(LOCATION_HISTORY_MAPPER::map)
                 .toList();
 
-        return ResponseEntity.ok(locationHistory);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(locationHistory);
     }
 
     @Override
-    public ResponseEntity<List<GenSparseLocationHistoryEntry>> getSparseLocations(Optional<LocalDate> from, Optional<LocalDate> to) {
-        final var filteredLocationHistory =  locationHistoryService.getSparseLocationHistory(
+    public ResponseEntity<List<GenSparseLocationHistoryEntry>> getSparseLocations(Optional<LocalDate> from, Optional<LocalDate> to,
+                                                                                  Optional<Integer> maxPoints,
+                                                                                  Optional<String> ifNoneMatch) {
+        final var fromDate = from.orElse(LocalDate.now().minusYears(100L));
+        final var toDate = to.orElse(LocalDate.now().plusYears(100L));
+        final int maxPointCount = maxPoints.orElse(DEFAULT_SPARSE_MAX_POINTS);
+        // the track is read from the pyramid or the entries, depending on the size of the range
+        final var etag = dataVersionService.etag(List.of(DataDomain.LOCATION, DataDomain.LOCATION_TRACK),
+                fromDate, toDate, maxPointCount, negotiatedMediaType());
+        if (DataVersionService.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        final var track = locationHistoryService.getSparseLocationHistory(fromDate, toDate, maxPointCount);
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(mapToSparseEntries(track));
+    }
+
+    @Override
+    public ResponseEntity<List<GenSparseLocationHistoryEntry>> getLocationsInBoundingBox(Double south, Double west, Double north, Double east,
+                                                                                         Optional<LocalDate> from, Optional<LocalDate> to,
+                                                                                         Optional<Integer> maxPoints) {
+        final var track = locationHistoryService.getSparseLocationHistoryWithin(
+                new BoundingBox(south, west, north, east),
+                from.orElse(LocalDate.now().minusYears(100L)),
+                to.orElse(LocalDate.now().plusYears(100L)),
+                maxPoints.orElse(DEFAULT_SPARSE_MAX_POINTS)
+        );
+
+        return ResponseEntity.ok(mapToSparseEntries(track));
+    }
+
+    @Override
+    public ResponseEntity<List<GenLocationDaySummary>> getLocationDaySummaries(Optional<LocalDate> from, Optional<LocalDate> to) {
+        final var summaries = locationDaySummaryService.getDaySummaries(
+                from.orElse(LocalDate.now().minusYears(100L)),
+                to.orElse(LocalDate.now().plusYears(100L))
+        );
+
+        return ResponseEntity.ok(summaries.stream()
+                .map(summary -> GenLocationDaySummary.builder()
+                        .day(summary.day())
+                        .pointCount(summary.pointCount())
+                        .south(summary.boundingBox().south())
+                        .west(summary.boundingBox().west())
+                        .north(summary.boundingBox().north())
+                        .east(summary.boundingBox().east())
+                        .distanceMeters(summary.distanceMeters())
+                        .firstFix(LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(summary.firstFix()))
+                        .lastFix(LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(summary.lastFix()))
+                        .countries(summary.countries())
+                        .pointsPerSource(summary.pointsPerSource().entrySet().stream()
+                                .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue)))
+                        .build())
+                .toList());
+    }
+
+    @Override
+    public ResponseEntity<List<GenLocationVisit>> getLocationVisits(Optional<LocalDate> from, Optional<LocalDate> to) {
+        final var visits = locationVisitService.getVisits(
                 from.orElse(LocalDate.now().minusYears(100L)),
                 to.orElse(LocalDate.now().plusYears(100L))
         );
 
-        final var locationHistory = filteredLocationHistory.stream()
-                .map(LOCATION_HISTORY_MAPPER::mapToSparseEntry)
+        return ResponseEntity.ok(visits.stream()
+                .map(visit -> GenLocationVisit.builder()
+                        .latitude(visit.latitude())
+                        .longitude(visit.longitude())
+                        .arrival(LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(visit.arrival()))
+                        .departure(LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(visit.departure()))
+                        .dwellSeconds(visit.dwell().toSeconds())
+                        .pointCount(visit.pointCount())
+                        .movementStart(LOCATION_HISTORY_MAPPER.localDateTimeToOffsetDateTime(visit.movementStart()))
+                        .movementPointCount(visit.movementPointCount())
+                        .movementDistanceMeters(visit.movementDistanceMeters())
+                        .build())
+                .toList());
+    }
+
+    private MediaType negotiatedMediaType() {
+        return LocationPolylineMessageConverter.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    private static List<GenSparseLocationHistoryEntry> mapToSparseEntries(LocationTrack track) {
+        return IntStream.range(0, track.size())
+                .mapToObj(i -> GenSparseLocationHistoryEntry.builder()
+                        .latitude(track.latitudes()[i])
+                        .longitude(track.longitudes()[i])
+                        .build())
                 .toList();
+    }
+
+    @Override
+    public ResponseEntity<GenHeatmapTile> getHeatmapTile(Integer z, Integer x, Integer y, Optional<LocalDate> from, Optional<LocalDate> to,
+                                                         Optional<String> ifNoneMatch) {
+        final var fromDate = from.orElse(LocalDate.now().minusYears(100L));
+        final var toDate = to.orElse(LocalDate.now().plusYears(100L));
+        final var etag = dataVersionService.etag(List.of(DataDomain.LOCATION), fromDate, toDate, z, x, y);
+        if (DataVersionService.isNotModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        final var cells = locationHeatmapService.getTile(z, x, y, fromDate, toDate);
 
-        return ResponseEntity.ok(locationHistory);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(GenHeatmapTile.builder()
+                        .z(z)
+                        .x(x)
+                        .y(y)
+                        .cells(cells.stream()
+                                .map(cell -> GenHeatmapCell.builder()
+                                        .latitude(cell.latitude())
+                                        .longitude(cell.longitude())
+                                        .count(cell.count())
+                                        .build())
+                                .toList())
+                        .build());
     }
 
     @Override
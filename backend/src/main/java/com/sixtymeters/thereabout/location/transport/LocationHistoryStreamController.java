@@ -0,0 +1,59 @@
+package com.sixtymeters.thereabout.location.transport;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryCursor;
+import com.sixtymeters.thereabout.location.transport.mapper.LocationHistoryMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Streams the location history of a date range as newline-delimited JSON, one {@code LocationHistoryEntry} per
+ * line, written while the rows are read. Unlike {@code GET /location}, memory use doesn't grow with the range.
+ * <p>
+ * Not part of the OpenAPI spec, the generated interfaces can only return fully materialized bodies.
+ */
+@RestController
+@RequiredArgsConstructor
+public class LocationHistoryStreamController {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final byte NEWLINE = '\n';
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final LocationHistoryMapper LOCATION_HISTORY_MAPPER = LocationHistoryMapper.INSTANCE;
+
+    private final LocationHistoryCursor locationHistoryCursor;
+    private final JsonMapper jsonMapper;
+
+    @GetMapping(value = "/backend/api/v1/location/stream", produces = APPLICATION_NDJSON)
+    public void streamLocations(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> from,
+                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Optional<LocalDate> to,
+                                HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        try (var out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE)) {
+            locationHistoryCursor.forEachEntry(
+                    from.orElse(LocalDate.now().minusYears(100L)).atStartOfDay(),
+                    to.orElse(LocalDate.now().plusYears(100L)).plusDays(1).atStartOfDay(),
+                    entry -> {
+                        try {
+                            out.write(jsonMapper.writeValueAsBytes(LOCATION_HISTORY_MAPPER.map(entry)));
+                            out.write(NEWLINE);
+                        } catch (IOException e) {
+                            // the client went away, stop reading rows
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.sixtymeters.thereabout.location.transport;
+
+import com.sixtymeters.thereabout.generated.model.GenLocationHistoryEntry;
+import com.sixtymeters.thereabout.generated.model.GenSparseLocationHistoryEntry;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes location lists as an encoded polyline (the Google Maps algorithm) when a client asks for
+ * {@value #POLYLINE_VALUE}. Every value is stored as the difference to the previous point in a few printable
+ * characters, a point typically takes 6-10 bytes instead of about 50 as JSON.
+ * <ul>
+ *     <li>sparse entries: latitude, longitude with 5 decimals</li>
+ *     <li>full entries: latitude, longitude with 5 decimals and the timestamp in epoch seconds as third value</li>
+ * </ul>
+ */
+@Component
+public class LocationPolylineMessageConverter extends AbstractHttpMessageConverter<List<?>> {
+
+    public static final String POLYLINE_VALUE = "application/vnd.thereabout.polyline";
+    public static final MediaType POLYLINE = MediaType.parseMediaType(POLYLINE_VALUE);
+
+    private static final double COORDINATE_FACTOR = 1e5;
+
+    // higher quality first, on a tie concrete types before wildcards, like the content negotiation of Spring MVC
+    private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardType)
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    public LocationPolylineMessageConverter() {
+        super(StandardCharsets.US_ASCII, POLYLINE);
+    }
+
+    /**
+     * The media type a location list is written in for the given Accept header, JSON or {@value #POLYLINE_VALUE}.
+     * Responses whose ETag is computed before the body is written include it, so both representations don't share
+     * an ETag.
+     */
+    public static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .filter(mediaType -> mediaType.getQualityValue() > 0)
+                .sorted(PREFERENCE)
+                .filter(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON) || mediaType.includes(POLYLINE))
+                .findFirst()
+                // JSON is the first type the endpoints produce, a wildcard gets JSON
+                .map(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON) ? MediaType.APPLICATION_JSON : POLYLINE)
+                .orElse(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded polylines can't be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<?> entries, HttpOutputMessage outputMessage) throws IOException {
+        final var polyline = new StringBuilder(entries.size() * 8);
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        long previousTimestamp = 0;
+        for (Object entry : entries) {
+            final double latitude;
+            final double longitude;
+            switch (entry) {
+                case GenLocationHistoryEntry fullEntry -> {
+                    latitude = fullEntry.getLatitude();
+                    longitude = fullEntry.getLongitude();
+                }
+                case GenSparseLocationHistoryEntry sparseEntry -> {
+                    latitude = sparseEntry.getLatitude();
+                    longitude = sparseEntry.getLongitude();
+                }
+                default -> throw new HttpMessageNotWritableException(
+                        "%s can't be written as polyline".formatted(entry.getClass().getSimpleName()));
+            }
+            final long scaledLatitude = Math.round(latitude * COORDINATE_FACTOR);
+            final long scaledLongitude = Math.round(longitude * COORDINATE_FACTOR);
+            appendValue(polyline, scaledLatitude - previousLatitude);
+            appendValue(polyline, scaledLongitude - previousLongitude);
+            previousLatitude = scaledLatitude;
+            previousLongitude = scaledLongitude;
+
+            if (entry instanceof GenLocationHistoryEntry fullEntry) {
+                final long timestamp = fullEntry.getTimestamp().toEpochSecond();
+                appendValue(polyline, timestamp - previousTimestamp);
+                previousTimestamp = timestamp;
+            }
+        }
+        outputMessage.getBody().write(polyline.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Appends a signed value as 5-bit chunks, least significant first, each offset by 63 into printable ASCII.
+     */
+    static void appendValue(StringBuilder polyline, long value) {
+        long remaining = value < 0 ? ~(value << 1) : value << 1;
+        while (remaining >= 0x20) {
+            polyline.append((char) ((0x20 | (remaining & 0x1f)) + 63));
+            remaining >>= 5;
+        }
+        polyline.append((char) (remaining + 63));
+    }
+}
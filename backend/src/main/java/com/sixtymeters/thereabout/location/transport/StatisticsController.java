@@ -1,19 +1,27 @@
 package com.sixtymeters.thereabout.location.transport;
 
 import com.sixtymeters.thereabout.location.service.StatisticsService;
+import com.sixtymeters.thereabout.location.service.YearStatisticsService;
 import com.sixtymeters.thereabout.generated.api.StatisticsApi;
 import com.sixtymeters.thereabout.generated.model.GenUserStatistics;
+import com.sixtymeters.thereabout.generated.model.GenYearStatistics;
+import com.sixtymeters.thereabout.generated.model.GenYearStatisticsContinentsInner;
+import com.sixtymeters.thereabout.generated.model.GenYearStatisticsCountriesInner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Optional;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class StatisticsController implements StatisticsApi {
 
     private final StatisticsService statisticsService;
+    private final YearStatisticsService yearStatisticsService;
 
     @Override
     public ResponseEntity<GenUserStatistics> getStatistics() {
@@ -22,4 +30,32 @@ public class StatisticsController implements StatisticsApi {
 
         return ResponseEntity.ok(userStatistics);
     }
+
+    @Override
+    public ResponseEntity<List<GenYearStatistics>> getYearStatistics(Optional<Integer> from, Optional<Integer> to) {
+        final var years = yearStatisticsService.getYearStatistics(from.orElse(Integer.MIN_VALUE), to.orElse(Integer.MAX_VALUE));
+
+        return ResponseEntity.ok(years.stream()
+                .map(year -> GenYearStatistics.builder()
+                        .year(year.year())
+                        .daysWithLocationHistory(year.daysWithLocationHistory())
+                        .distanceMeters(year.distanceMeters())
+                        .countries(year.countries().stream()
+                                .map(country -> GenYearStatisticsCountriesInner.builder()
+                                        .countryIsoCode(country.countryIsoCode())
+                                        .countryName(country.countryName())
+                                        .continent(country.continent())
+                                        .numberOfDaysSpent(country.days())
+                                        .build())
+                                .toList())
+                        .continents(year.continents().stream()
+                                .map(continent -> GenYearStatisticsContinentsInner.builder()
+                                        .continent(continent.continent())
+                                        .numberOfDaysSpent(continent.days())
+                                        .build())
+                                .toList())
+                        .newCountries(year.newCountries())
+                        .build())
+                .toList());
+    }
 }
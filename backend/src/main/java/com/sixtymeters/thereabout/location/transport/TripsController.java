@@ -1,9 +1,12 @@
 package com.sixtymeters.thereabout.location.transport;
 
+import com.sixtymeters.thereabout.location.service.CountryResolver;
 import com.sixtymeters.thereabout.location.service.LocationHistoryService;
+import com.sixtymeters.thereabout.location.service.TripProposalService;
 import com.sixtymeters.thereabout.location.service.TripsService;
 import com.sixtymeters.thereabout.generated.api.TripApi;
 import com.sixtymeters.thereabout.generated.model.GenTrip;
+import com.sixtymeters.thereabout.generated.model.GenTripProposal;
 import com.sixtymeters.thereabout.generated.model.GenTripVisitedCountriesInner;
 import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
 import com.sixtymeters.thereabout.location.data.TripEntity;
@@ -15,9 +18,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
-import uk.recurse.geocoding.reverse.ReverseGeocoder;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -29,8 +32,9 @@ public class TripsController implements TripApi {
 
     private static final TripMapper TRIP_MAPPER = TripMapper.INSTANCE;
     private final TripsService tripsService;
+    private final TripProposalService tripProposalService;
     private final LocationHistoryService locationHistoryService;
-    private final ReverseGeocoder reverseGeocoder = new ReverseGeocoder();
+    private final CountryResolver countryResolver;
 
     @Override
     public ResponseEntity<GenTrip> addTrip(GenTrip genTrip) {
@@ -62,9 +66,7 @@ public class TripsController implements TripApi {
                 .distinct()
                 .forEach(country -> trip.addVisitedCountriesItem(GenTripVisitedCountriesInner.builder()
                         .countryIsoCode(country)
-                        .countryName(reverseGeocoder.countries()
-                                .filter(c -> c.iso().equals(country))
-                                .findFirst()
+                        .countryName(countryResolver.countryOfIso(country)
                                 .orElseThrow(() -> new ThereaboutException(HttpStatusCode.valueOf(500), "Country %s not found".formatted(country)))
                                 .name())
                         .build()));
@@ -78,4 +80,29 @@ public class TripsController implements TripApi {
         GenTrip response = TRIP_MAPPER.mapToGenTrip(updatedTrip);
         return ResponseEntity.ok(response);
     }
+
+    @Override
+    public ResponseEntity<List<GenTripProposal>> getTripProposals() {
+        return ResponseEntity.ok(tripProposalService.getProposals().stream()
+                .map(proposal -> GenTripProposal.builder()
+                        .id(BigDecimal.valueOf(proposal.getId()))
+                        .start(proposal.getStart())
+                        .end(proposal.getEnd())
+                        .countries(proposal.getCountries() == null ? List.of() : Arrays.asList(proposal.getCountries().split(",")))
+                        .distanceMeters(proposal.getDistanceMeters())
+                        .build())
+                .toList());
+    }
+
+    @Override
+    public ResponseEntity<GenTrip> acceptTripProposal(BigDecimal id) {
+        TripEntity trip = tripProposalService.acceptProposal(id.longValue());
+        return ResponseEntity.status(HttpStatus.CREATED).body(TRIP_MAPPER.mapToGenTrip(trip));
+    }
+
+    @Override
+    public ResponseEntity<Void> dismissTripProposal(BigDecimal id) {
+        tripProposalService.dismissProposal(id.longValue());
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -2,7 +2,6 @@ package com.sixtymeters.thereabout.location.transport.mapper;
 
 import com.sixtymeters.thereabout.generated.model.GenGeoJsonLocation;
 import com.sixtymeters.thereabout.generated.model.GenLocationHistoryEntry;
-import com.sixtymeters.thereabout.generated.model.GenSparseLocationHistoryEntry;
 import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,8 +16,6 @@ import java.time.ZoneOffset;
 public interface LocationHistoryMapper {
     LocationHistoryMapper INSTANCE = Mappers.getMapper(LocationHistoryMapper.class);
 
-    GenSparseLocationHistoryEntry mapToSparseEntry(final LocationHistoryEntity locationHistoryEntity);
-
     @Mapping(source = "timestamp", target = "timestamp", qualifiedByName = "localDateTimeToOffsetDateTime")
     GenLocationHistoryEntry map(final LocationHistoryEntity locationHistoryEntity);
 
@@ -27,6 +24,8 @@ public interface LocationHistoryMapper {
     @Mapping(target = "sensorSource", ignore = true)
     @Mapping(target = "source", ignore = true)
     @Mapping(target = "estimatedIsoCountryCode", ignore = true)
+    @Mapping(target = "rawLatitude", ignore = true)
+    @Mapping(target = "rawLongitude", ignore = true)
     @Mapping(source = "timestamp", target = "timestamp", qualifiedByName = "OffsetDateTimeToLocalDateTime")
     LocationHistoryEntity map(final GenLocationHistoryEntry locationHistoryEntry);
 
@@ -46,6 +45,8 @@ public interface LocationHistoryMapper {
     @Mapping(target = "note", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "estimatedIsoCountryCode", ignore = true)
+    @Mapping(target = "rawLatitude", ignore = true)
+    @Mapping(target = "rawLongitude", ignore = true)
     @Mapping(target = "timestamp", source = "properties.timestamp", qualifiedByName = "OffsetDateTimeToLocalDateTime")
     @Mapping(target = "latitude", expression = "java(locationHistoryEntry.getGeometry().getCoordinates().get(1).doubleValue())")
     @Mapping(target = "longitude", expression = "java(locationHistoryEntry.getGeometry().getCoordinates().get(0).doubleValue())")
@@ -0,0 +1,32 @@
+-- Content-based natural key of a location fix: timestamp, coordinates rounded to 6 decimals (~0.1m) and device.
+-- Re-importing an overlapping export then only inserts the new rows (the importer uses INSERT IGNORE).
+
+-- Remove duplicates that were imported before the key existed, keeping the oldest row.
+-- List memberships of a duplicate are moved to the kept row first, they would be cascaded away otherwise.
+UPDATE IGNORE location_history_list_entries list_entry
+    JOIN location_history_entry newer ON list_entry.location_history_entry_id = newer.id
+    JOIN location_history_entry older
+         ON newer.timestamp = older.timestamp
+             AND ROUND(newer.latitude, 6) = ROUND(older.latitude, 6)
+             AND ROUND(newer.longitude, 6) = ROUND(older.longitude, 6)
+             AND newer.device_tag <=> older.device_tag
+             AND newer.id > older.id
+SET list_entry.location_history_entry_id = older.id;
+
+DELETE newer
+FROM location_history_entry newer
+         JOIN location_history_entry older
+              ON newer.timestamp = older.timestamp
+                  AND ROUND(newer.latitude, 6) = ROUND(older.latitude, 6)
+                  AND ROUND(newer.longitude, 6) = ROUND(older.longitude, 6)
+                  AND newer.device_tag <=> older.device_tag
+                  AND newer.id > older.id;
+
+ALTER TABLE location_history_entry
+    ADD COLUMN dedup_key BINARY(16) AS (UNHEX(MD5(CONCAT_WS('|',
+                                                           TO_SECONDS(timestamp),
+                                                           MICROSECOND(timestamp),
+                                                           ROUND(latitude, 6),
+                                                           ROUND(longitude, 6),
+                                                           IFNULL(device_tag, ''))))) PERSISTENT,
+    ADD UNIQUE INDEX idx_location_history_dedup (dedup_key);
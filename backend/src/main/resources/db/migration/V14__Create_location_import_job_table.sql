@@ -0,0 +1,15 @@
+-- Checkpoint of a Google location history import. records_committed is updated in the same transaction as the
+-- rows of each chunk, so an interrupted import can resume after the last committed record.
+CREATE TABLE location_import_job
+(
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY,
+    file_path         VARCHAR(1024) NOT NULL,
+    status            VARCHAR(50)   NOT NULL,
+    records_committed BIGINT        NOT NULL DEFAULT 0,
+    bytes_committed   BIGINT        NOT NULL DEFAULT 0,
+    total_bytes       BIGINT        NOT NULL,
+    error_message     VARCHAR(1024),
+    created_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_location_import_job_status (status)
+);
@@ -0,0 +1,2 @@
+ALTER TABLE location_import_job
+    ADD COLUMN format VARCHAR(50) NOT NULL DEFAULT 'GOOGLE_RECORDS' AFTER file_path;
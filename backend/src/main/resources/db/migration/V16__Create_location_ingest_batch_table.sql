@@ -0,0 +1,11 @@
+-- Batches received through the GeoJSON endpoint, keyed by a hash of their Idempotency-Key header or content.
+-- Only a window of recent batches is kept, it exists to make client retries cheap and duplicate-free.
+CREATE TABLE location_ingest_batch
+(
+    batch_key   VARCHAR(64) NOT NULL PRIMARY KEY,
+    accepted    INT         NOT NULL DEFAULT 0,
+    duplicates  INT         NOT NULL DEFAULT 0,
+    rejected    INT         NOT NULL DEFAULT 0,
+    received_at DATETIME(6) NOT NULL,
+    INDEX idx_location_ingest_batch_received_at (received_at)
+);
@@ -0,0 +1,11 @@
+-- Shape-simplified track of every day at a few resolutions (level 0 is the coarsest), rebuilt whenever the
+-- location history of a day changes. coordinates holds point_count latitude/longitude pairs as big-endian doubles.
+CREATE TABLE location_track_pyramid
+(
+    level         TINYINT     NOT NULL,
+    day           DATE        NOT NULL,
+    point_count   INT         NOT NULL,
+    source_points INT         NOT NULL,
+    coordinates   MEDIUMBLOB  NOT NULL,
+    PRIMARY KEY (level, day)
+);
@@ -0,0 +1,24 @@
+-- Number of location history entries per day and Web Mercator cell. A cell is a map tile at zoom level 20
+-- (about 38m at the equator), cells of lower zoom levels are aggregated with a right shift of the coordinates.
+CREATE TABLE location_heatmap_cell
+(
+    cell_x INT    NOT NULL,
+    cell_y INT    NOT NULL,
+    day    DATE   NOT NULL,
+    count  INT    NOT NULL,
+    PRIMARY KEY (cell_x, cell_y, day),
+    INDEX idx_location_heatmap_cell_day (day)
+);
+
+INSERT INTO location_heatmap_cell (cell_x, cell_y, day, count)
+SELECT cell_x, cell_y, day, COUNT(*)
+FROM (SELECT LEAST(GREATEST(FLOOR((longitude + 180) / 360 * 1048576), 0), 1048575)                           AS cell_x,
+             LEAST(GREATEST(FLOOR((1 - LN(TAN(RADIANS(lat)) + 1 / COS(RADIANS(lat))) / PI()) / 2 * 1048576), 0),
+                   1048575)                                                                                  AS cell_y,
+             day
+      FROM (SELECT longitude,
+                   LEAST(GREATEST(latitude, -85.0511287798), 85.0511287798) AS lat,
+                   CAST(timestamp AS DATE)                                   AS day
+            FROM location_history_entry
+            WHERE ignore_entry = false) clamped) cells
+GROUP BY cell_x, cell_y, day;
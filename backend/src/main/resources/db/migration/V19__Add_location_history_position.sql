@@ -0,0 +1,18 @@
+-- The position of an entry as geometry (x = longitude, y = latitude) with an R-tree index for viewport queries.
+-- New rows get it from the column default, the trigger keeps it in sync when an entry is moved.
+ALTER TABLE location_history_entry
+    ADD COLUMN position POINT NULL;
+
+UPDATE location_history_entry
+SET position = POINT(longitude, latitude);
+
+ALTER TABLE location_history_entry
+    MODIFY COLUMN position POINT NOT NULL DEFAULT (POINT(longitude, latitude));
+
+ALTER TABLE location_history_entry
+    ADD SPATIAL INDEX idx_location_history_position (position);
+
+CREATE TRIGGER location_history_entry_position_update
+    BEFORE UPDATE
+    ON location_history_entry
+    FOR EACH ROW SET NEW.position = POINT(NEW.longitude, NEW.latitude);
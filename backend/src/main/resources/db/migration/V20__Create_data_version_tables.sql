@@ -0,0 +1,18 @@
+-- Version stamps for HTTP caching. Every write stores a new value of the sequence for the days it touches, so the
+-- sum of the versions of a date range changes whenever one of its days does.
+CREATE SEQUENCE data_version_seq;
+
+CREATE TABLE day_version
+(
+    domain  VARCHAR(32) NOT NULL,
+    day     DATE        NOT NULL,
+    version BIGINT      NOT NULL,
+    PRIMARY KEY (domain, day)
+);
+
+-- For changes that affect every day of a domain, e.g. renaming an identity changes all of its messages
+CREATE TABLE domain_version
+(
+    domain  VARCHAR(32) NOT NULL PRIMARY KEY,
+    version BIGINT      NOT NULL
+);
@@ -0,0 +1,55 @@
+-- One row per day with active location history entries, kept up to date on every write of the entries.
+-- The distance is the sum of the great-circle distances between consecutive entries of the day.
+CREATE TABLE location_day_summary
+(
+    day             DATE        NOT NULL PRIMARY KEY,
+    point_count     INT         NOT NULL,
+    min_latitude    DOUBLE      NOT NULL,
+    max_latitude    DOUBLE      NOT NULL,
+    min_longitude   DOUBLE      NOT NULL,
+    max_longitude   DOUBLE      NOT NULL,
+    distance_meters DOUBLE      NOT NULL,
+    first_fix       DATETIME(6) NOT NULL,
+    last_fix        DATETIME(6) NOT NULL,
+    countries       VARCHAR(255)
+);
+
+CREATE TABLE location_day_source
+(
+    day         DATE         NOT NULL,
+    source      VARCHAR(255) NOT NULL,
+    point_count INT          NOT NULL,
+    PRIMARY KEY (day, source)
+);
+
+INSERT INTO location_day_summary (day, point_count, min_latitude, max_latitude, min_longitude, max_longitude,
+                                  distance_meters, first_fix, last_fix, countries)
+SELECT day,
+       COUNT(*),
+       MIN(latitude),
+       MAX(latitude),
+       MIN(longitude),
+       MAX(longitude),
+       COALESCE(SUM(2 * 6371008.8 * ASIN(SQRT(LEAST(1,
+               POW(SIN(RADIANS(latitude - previous_latitude) / 2), 2)
+               + COS(RADIANS(previous_latitude)) * COS(RADIANS(latitude))
+                     * POW(SIN(RADIANS(longitude - previous_longitude) / 2), 2))))), 0),
+       MIN(timestamp),
+       MAX(timestamp),
+       GROUP_CONCAT(DISTINCT estimated_iso_country_code ORDER BY estimated_iso_country_code)
+FROM (SELECT CAST(timestamp AS DATE)                                                                  AS day,
+             timestamp,
+             latitude,
+             longitude,
+             estimated_iso_country_code,
+             LAG(latitude) OVER (PARTITION BY CAST(timestamp AS DATE) ORDER BY timestamp, id)  AS previous_latitude,
+             LAG(longitude) OVER (PARTITION BY CAST(timestamp AS DATE) ORDER BY timestamp, id) AS previous_longitude
+      FROM location_history_entry
+      WHERE ignore_entry = false) points
+GROUP BY day;
+
+INSERT INTO location_day_source (day, source, point_count)
+SELECT CAST(timestamp AS DATE), source, COUNT(*)
+FROM location_history_entry
+WHERE ignore_entry = false
+GROUP BY CAST(timestamp AS DATE), source;
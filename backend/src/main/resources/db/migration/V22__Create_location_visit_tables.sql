@@ -0,0 +1,24 @@
+-- Stays detected in the location history: the entries remained within a small radius for a while.
+-- Every visit also describes the movement that led to it, from the departure of the previous visit to its arrival.
+CREATE TABLE location_visit
+(
+    id                       BIGINT      NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    latitude                 DOUBLE      NOT NULL,
+    longitude                DOUBLE      NOT NULL,
+    arrival                  DATETIME(6) NOT NULL,
+    departure                DATETIME(6) NOT NULL,
+    point_count              INT         NOT NULL,
+    movement_start           DATETIME(6) NOT NULL,
+    movement_point_count     INT         NOT NULL,
+    movement_distance_meters DOUBLE      NOT NULL,
+    INDEX idx_location_visit_arrival (arrival),
+    INDEX idx_location_visit_departure (departure)
+);
+
+-- A single row, entries up to processed_until have been assigned to a visit or the movement before it.
+-- Visits are detected from there on, later entries may still turn out to be the start of a stay.
+CREATE TABLE location_visit_watermark
+(
+    id              TINYINT     NOT NULL PRIMARY KEY,
+    processed_until DATETIME(6) NOT NULL
+);
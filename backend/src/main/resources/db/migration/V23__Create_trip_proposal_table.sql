@@ -0,0 +1,33 @@
+-- The position of the last entry of the day, usually where the night was spent.
+ALTER TABLE location_day_summary
+    ADD COLUMN last_latitude  DOUBLE NULL,
+    ADD COLUMN last_longitude DOUBLE NULL;
+
+UPDATE location_day_summary s
+SET s.last_latitude  = (SELECT e.latitude
+                        FROM location_history_entry e
+                        WHERE e.ignore_entry = false AND e.timestamp = s.last_fix
+                        ORDER BY e.id DESC
+                        LIMIT 1),
+    s.last_longitude = (SELECT e.longitude
+                        FROM location_history_entry e
+                        WHERE e.ignore_entry = false AND e.timestamp = s.last_fix
+                        ORDER BY e.id DESC
+                        LIMIT 1);
+
+ALTER TABLE location_day_summary
+    MODIFY COLUMN last_latitude DOUBLE NOT NULL,
+    MODIFY COLUMN last_longitude DOUBLE NOT NULL;
+
+-- Trips detected in the location history, until they are accepted as a trip or dismissed.
+CREATE TABLE trip_proposals
+(
+    id              BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    start           DATE         NOT NULL,
+    end             DATE         NOT NULL,
+    countries       VARCHAR(255),
+    distance_meters DOUBLE       NOT NULL,
+    status          VARCHAR(32)  NOT NULL,
+    CONSTRAINT chk_trip_proposal_end_after_start CHECK (end >= start),
+    INDEX idx_trip_proposals_end (end)
+);
@@ -0,0 +1,15 @@
+-- One row per country and day with active location history entries in that country, kept up to date on every write
+-- of the entries. The country statistics are aggregated from here instead of from all entries.
+CREATE TABLE country_day
+(
+    country CHAR(2) NOT NULL,
+    day     DATE    NOT NULL,
+    PRIMARY KEY (country, day)
+);
+
+INSERT INTO country_day (country, day)
+SELECT DISTINCT estimated_iso_country_code, CAST(timestamp AS DATE)
+FROM location_history_entry
+WHERE ignore_entry = false
+  AND estimated_iso_country_code IS NOT NULL
+  AND estimated_iso_country_code <> '';
@@ -0,0 +1,4 @@
+-- What the ingest filter did to a batch, so that a replayed batch is answered with the original counts.
+ALTER TABLE location_ingest_batch
+    ADD COLUMN ignored INT NOT NULL DEFAULT 0,
+    ADD COLUMN dropped INT NOT NULL DEFAULT 0;
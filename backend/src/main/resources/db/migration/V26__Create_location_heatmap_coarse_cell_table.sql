@@ -0,0 +1,16 @@
+-- location_heatmap_cell aggregated to zoom level 12 cells (about 10km at the equator). Tiles up to zoom level 4 are
+-- read from this table, so they don't aggregate every zoom level 20 cell of the date range.
+CREATE TABLE location_heatmap_coarse_cell
+(
+    cell_x INT    NOT NULL,
+    cell_y INT    NOT NULL,
+    day    DATE   NOT NULL,
+    count  INT    NOT NULL,
+    PRIMARY KEY (cell_x, cell_y, day),
+    INDEX idx_location_heatmap_coarse_cell_day (day)
+);
+
+INSERT INTO location_heatmap_coarse_cell (cell_x, cell_y, day, count)
+SELECT cell_x >> 8, cell_y >> 8, day, SUM(count)
+FROM location_heatmap_cell
+GROUP BY cell_x >> 8, cell_y >> 8, day;
@@ -0,0 +1,19 @@
+-- The coordinates as received, for entries whose stored coordinates have been smoothed on ingest. Smoothing depends
+-- on the other entries of a batch, so the natural key is computed from the raw coordinates when there are any, a
+-- re-sent fix then collides with the stored one however the batches were split.
+ALTER TABLE location_history_entry
+    ADD COLUMN raw_latitude DOUBLE NULL,
+    ADD COLUMN raw_longitude DOUBLE NULL;
+
+ALTER TABLE location_history_entry
+    DROP INDEX idx_location_history_dedup,
+    DROP COLUMN dedup_key;
+
+ALTER TABLE location_history_entry
+    ADD COLUMN dedup_key BINARY(16) AS (UNHEX(MD5(CONCAT_WS('|',
+                                                           TO_SECONDS(timestamp),
+                                                           MICROSECOND(timestamp),
+                                                           ROUND(IFNULL(raw_latitude, latitude), 6),
+                                                           ROUND(IFNULL(raw_longitude, longitude), 6),
+                                                           IFNULL(device_tag, ''))))) PERSISTENT,
+    ADD UNIQUE INDEX idx_location_history_dedup (dedup_key);
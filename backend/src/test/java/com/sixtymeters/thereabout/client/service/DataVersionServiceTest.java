@@ -0,0 +1,73 @@
+package com.sixtymeters.thereabout.client.service;
+
+import com.sixtymeters.thereabout.client.data.DataDomain;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class DataVersionServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(1995, 3, 14);
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Test
+    void etagChangesOnlyWhenADayOfTheRangeIsTouched() {
+        final var week = dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY.plusDays(6));
+        final var nextWeek = dataVersionService.etag(List.of(DataDomain.HEALTH), DAY.plusDays(7), DAY.plusDays(13));
+        assertThat(dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY.plusDays(6))).isEqualTo(week);
+
+        dataVersionService.touch(DataDomain.HEALTH, List.of(DAY.plusDays(3)));
+        final var touchedWeek = dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY.plusDays(6));
+        assertThat(touchedWeek).isNotEqualTo(week);
+        assertThat(dataVersionService.etag(List.of(DataDomain.HEALTH), DAY.plusDays(7), DAY.plusDays(13))).isEqualTo(nextWeek);
+        assertThat(dataVersionService.etag(List.of(DataDomain.MESSAGE), DAY, DAY.plusDays(6)))
+                .isNotEqualTo(touchedWeek);
+
+        // touching the same day again must change the ETag again
+        dataVersionService.touch(DataDomain.HEALTH, List.of(DAY.plusDays(3)));
+        assertThat(dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY.plusDays(6))).isNotEqualTo(touchedWeek);
+    }
+
+    @Test
+    void touchAllChangesEveryRangeOfTheDomain() {
+        final var day = dataVersionService.etag(List.of(DataDomain.MESSAGE), DAY, DAY);
+        final var health = dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY);
+
+        dataVersionService.touchAll(DataDomain.MESSAGE);
+
+        assertThat(dataVersionService.etag(List.of(DataDomain.MESSAGE), DAY, DAY)).isNotEqualTo(day);
+        assertThat(dataVersionService.etag(List.of(DataDomain.HEALTH), DAY, DAY)).isEqualTo(health);
+    }
+
+    @Test
+    void parametersArePartOfTheEtag() {
+        assertThat(dataVersionService.etag(List.of(DataDomain.LOCATION), DAY, DAY, 100))
+                .isNotEqualTo(dataVersionService.etag(List.of(DataDomain.LOCATION), DAY, DAY, 1000))
+                .startsWith("\"")
+                .endsWith("\"");
+    }
+
+    @Test
+    void matchesIfNoneMatchLists() {
+        final var etag = "\"abc\"";
+
+        assertThat(DataVersionService.isNotModified(Optional.of("\"abc\""), etag)).isTrue();
+        assertThat(DataVersionService.isNotModified(Optional.of("\"xyz\", W/\"abc\""), etag)).isTrue();
+        assertThat(DataVersionService.isNotModified(Optional.of("*"), etag)).isTrue();
+        assertThat(DataVersionService.isNotModified(Optional.of("\"xyz\""), etag)).isFalse();
+        assertThat(DataVersionService.isNotModified(Optional.empty(), etag)).isFalse();
+    }
+}
@@ -0,0 +1,106 @@
+package com.sixtymeters.thereabout.client.service;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.generated.model.GenImportType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportJobRegistryTest {
+
+    private final ImportProperties properties = new ImportProperties();
+    private ImportJobRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void jobsReportTheirOwnProgress_evenFromThreadsTheyHandTheJobTo() throws Exception {
+        registry = new ImportJobRegistry(properties);
+        final var progressService = new ImportProgressService(registry);
+        final var file = tempFileOfSize(200);
+        final var bothRunning = new CountDownLatch(2);
+
+        final var first = registry.submit(GenImportType.WHATSAPP_CHAT, file, () -> {
+            progressService.setProgress(30);
+            awaitOther(bothRunning);
+        });
+        final var second = registry.submit(GenImportType.GOOGLE_MAPS_RECORDS, file, () -> {
+            try (var stages = Executors.newVirtualThreadPerTaskExecutor()) {
+                // threads don't inherit the job, they may outlive it in a pool
+                stages.submit(() -> progressService.setStage("unrelated"));
+                stages.submit(progressService.withCurrentJob(() -> {
+                    progressService.setRecordsProcessed(10);
+                    progressService.setBytesRead(50);
+                }));
+            }
+            awaitOther(bothRunning);
+            throw new IllegalStateException("broken file");
+        });
+
+        awaitCompletion(first);
+        awaitCompletion(second);
+        assertThat(first.getStatus()).isEqualTo(ImportJobStatus.FINISHED);
+        assertThat(first.getProgress()).isEqualTo(100);
+        assertThat(second.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(second.getProgress()).isEqualTo(25);
+        assertThat(second.getRecordsProcessed()).isEqualTo(10);
+        assertThat(second.getStage()).isNotEqualTo("unrelated");
+        assertThat(second.getErrorMessage()).isEqualTo("broken file");
+        assertThat(registry.getJobs()).containsExactlyInAnyOrder(first, second);
+        assertThat(progressService.getProgress()).isZero();
+    }
+
+    @Test
+    void submitRejectsJobsOnceTheQueueIsFull() throws Exception {
+        properties.setMaxConcurrentJobs(1);
+        properties.setMaxQueuedJobs(1);
+        registry = new ImportJobRegistry(properties);
+        final var file = tempFileOfSize(1);
+        final var release = new CountDownLatch(1);
+
+        registry.submit(GenImportType.WHATSAPP_CHAT, file, () -> await(release));
+        registry.submit(GenImportType.WHATSAPP_CHAT, file, () -> { });
+
+        assertThatThrownBy(() -> registry.submit(GenImportType.WHATSAPP_CHAT, file, () -> { }))
+                .isInstanceOf(ThereaboutException.class);
+        assertThat(registry.getJobs()).hasSize(2);
+        release.countDown();
+    }
+
+    private static File tempFileOfSize(int bytes) throws Exception {
+        final var file = Files.createTempFile("import", ".json");
+        Files.write(file, new byte[bytes]);
+        return file.toFile();
+    }
+
+    private static void awaitCompletion(ImportJob job) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.isActive() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        await(latch);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
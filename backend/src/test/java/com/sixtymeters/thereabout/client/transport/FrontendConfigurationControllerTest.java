@@ -6,6 +6,8 @@ import com.sixtymeters.thereabout.client.data.ConfigurationKey;
 import com.sixtymeters.thereabout.client.data.ConfigurationRepository;
 import com.sixtymeters.thereabout.generated.model.GenFileImportStatus;
 import com.sixtymeters.thereabout.generated.model.GenFrontendConfigurationResponse;
+import com.sixtymeters.thereabout.generated.model.GenImportJob;
+import com.sixtymeters.thereabout.generated.model.GenImportType;
 import com.sixtymeters.thereabout.generated.model.GenTelegramStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -102,11 +104,38 @@ class FrontendConfigurationControllerTest {
                 "{\"locations\": []}".getBytes()
         );
 
-        mockMvc.perform(multipart("/backend/api/v1/config/import-file")
+        String responseContent = mockMvc.perform(multipart("/backend/api/v1/config/import-file")
                         .file(file)
                         .param("importType", "GOOGLE_MAPS_RECORDS")
                         .param("receiver", "test-receiver"))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        GenImportJob job = objectMapper.readValue(responseContent, GenImportJob.class);
+        assertThat(job.getId()).isNotBlank();
+        assertThat(job.getImportType()).isEqualTo(GenImportType.GOOGLE_MAPS_RECORDS);
+        assertThat(job.getFileName()).isEqualTo("test-location-history.json");
+        assertThat(job.getTotalBytes()).isEqualTo(file.getSize());
+
+        String jobsContent = mockMvc.perform(get("/backend/api/v1/config/import-jobs"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertThat(objectMapper.readValue(jobsContent, GenImportJob[].class))
+                .extracting(GenImportJob::getId)
+                .contains(job.getId());
+
+        mockMvc.perform(get("/backend/api/v1/config/import-jobs/{id}", job.getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetUnknownImportJob() throws Exception {
+        mockMvc.perform(get("/backend/api/v1/config/import-jobs/{id}", "unknown"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.sixtymeters.thereabout.communication.telegram;
 
+import com.sixtymeters.thereabout.client.service.DataVersionService;
 import com.sixtymeters.thereabout.communication.data.CommunicationApplication;
 import com.sixtymeters.thereabout.communication.data.MessageEntity;
 import com.sixtymeters.thereabout.communication.data.MessageRepository;
@@ -56,6 +57,9 @@ class TelegramTdlibServiceTest {
     @Mock
     private MessageRepository messageRepository;
 
+    @Mock
+    private DataVersionService dataVersionService;
+
     @Mock
     private SimpleTelegramClient client;
 
@@ -73,7 +77,8 @@ class TelegramTdlibServiceTest {
                 connectionRepository,
                 checkpointRepository,
                 messageMapper,
-                messageRepository
+                messageRepository,
+                dataVersionService
         );
 
         connection = TelegramConnectionEntity.builder()
@@ -0,0 +1,102 @@
+package com.sixtymeters.thereabout.location.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationHistoryBulkWriterTest {
+
+    private static final LocalDate IMPORT_DAY = LocalDate.of(2001, 2, 3);
+
+    @Autowired
+    private LocationHistoryBulkWriter bulkWriter;
+
+    @Autowired
+    private LocationHistoryRepository locationHistoryRepository;
+
+    @Test
+    void insertAllWritesEveryEntryAcrossMultipleStatements() {
+        List<LocationHistoryEntity> entries = IntStream.range(0, 1005)
+                .mapToObj(i -> LocationHistoryEntity.builder()
+                        .timestamp(IMPORT_DAY.atStartOfDay().plusSeconds(i))
+                        .latitude(47.3769 + i / 100_000.0)
+                        .longitude(8.5417)
+                        .horizontalAccuracy(10)
+                        .verticalAccuracy(5)
+                        .altitude(400)
+                        .heading(90)
+                        .velocity(1)
+                        .source(LocationHistorySource.GOOGLE_IMPORT)
+                        .estimatedIsoCountryCode("CH")
+                        .deviceTag("device")
+                        .sensorSource("GPS")
+                        .build())
+                .toList();
+
+        int inserted = bulkWriter.insertAll(entries);
+
+        assertThat(inserted).isEqualTo(1005);
+        List<LocationHistoryEntity> stored = locationHistoryRepository.findAllByTimestampBetween(
+                IMPORT_DAY.atStartOfDay(), IMPORT_DAY.plusDays(1).atStartOfDay());
+        assertThat(stored).hasSize(1005);
+        assertThat(stored.getFirst())
+                .extracting(LocationHistoryEntity::getTimestamp, LocationHistoryEntity::getLatitude,
+                        LocationHistoryEntity::getSource, LocationHistoryEntity::getEstimatedIsoCountryCode,
+                        LocationHistoryEntity::getDeviceTag, LocationHistoryEntity::getSensorSource)
+                .containsExactly(LocalDateTime.of(IMPORT_DAY, java.time.LocalTime.MIDNIGHT), 47.3769,
+                        LocationHistorySource.GOOGLE_IMPORT, "CH", "device", "GPS");
+    }
+
+    @Test
+    void insertAllSkipsEntriesThatAlreadyExist() {
+        LocationHistoryEntity existing = entryAt(IMPORT_DAY.atTime(12, 0), 47.3769);
+        bulkWriter.insertAll(List.of(existing));
+
+        // same fix with sub-micro-degree noise, as produced by overlapping exports
+        int inserted = bulkWriter.insertAll(List.of(
+                entryAt(IMPORT_DAY.atTime(12, 0), 47.37690001),
+                entryAt(IMPORT_DAY.atTime(12, 1), 47.3769)));
+
+        assertThat(inserted).isEqualTo(1);
+        assertThat(locationHistoryRepository.findAllByTimestampBetween(
+                IMPORT_DAY.atStartOfDay(), IMPORT_DAY.plusDays(1).atStartOfDay())).hasSize(2);
+    }
+
+    @Test
+    void insertAllSkipsEntriesWithTheSameRawCoordinates() {
+        LocationHistoryEntity smoothed = entryAt(IMPORT_DAY.atTime(13, 0), 47.3770);
+        smoothed.setRawLatitude(47.3779);
+        smoothed.setRawLongitude(8.5417);
+        bulkWriter.insertAll(List.of(smoothed));
+
+        // the same fix sent again, smoothed differently in another batch
+        LocationHistoryEntity resent = entryAt(IMPORT_DAY.atTime(13, 0), 47.3775);
+        resent.setRawLatitude(47.3779);
+        resent.setRawLongitude(8.5417);
+        int inserted = bulkWriter.insertAll(List.of(resent));
+
+        assertThat(inserted).isZero();
+    }
+
+    private static LocationHistoryEntity entryAt(LocalDateTime timestamp, double latitude) {
+        return LocationHistoryEntity.builder()
+                .timestamp(timestamp)
+                .latitude(latitude)
+                .longitude(8.5417)
+                .source(LocationHistorySource.GOOGLE_IMPORT)
+                .deviceTag("device")
+                .build();
+    }
+}
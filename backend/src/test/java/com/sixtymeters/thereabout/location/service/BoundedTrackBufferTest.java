@@ -0,0 +1,51 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTrackBufferTest {
+
+    private final TrackSimplifier trackSimplifier = new TrackSimplifier();
+
+    @Test
+    void simplifiesTracksThatFitLikeTheWholeTrack() {
+        final var track = wave(500);
+        final var buffer = new BoundedTrackBuffer(trackSimplifier, 1000);
+        streamInto(track, buffer);
+
+        final var expected = track.select(trackSimplifier.simplify(track, 50));
+        final var actual = buffer.toTrack(50);
+        assertThat(actual.latitudes()).containsExactly(expected.latitudes());
+        assertThat(actual.longitudes()).containsExactly(expected.longitudes());
+    }
+
+    @Test
+    void keepsLongTracksWithinTheBudget() {
+        final var track = wave(10_000);
+        final var buffer = new BoundedTrackBuffer(trackSimplifier, 200);
+        streamInto(track, buffer);
+
+        final var simplified = buffer.toTrack(50);
+        assertThat(simplified.size()).isEqualTo(50);
+        assertThat(simplified.longitudes()[0]).isEqualTo(track.longitudes()[0]);
+        assertThat(simplified.longitudes()[49]).isEqualTo(track.longitudes()[9_999]);
+    }
+
+    private static LocationTrack wave(int size) {
+        final var latitudes = new double[size];
+        final var longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = 47.0 + Math.sin(i / 20.0) * 0.01;
+            longitudes[i] = 8.0 + i * 0.0001;
+        }
+        return new LocationTrack(latitudes, longitudes);
+    }
+
+    private static void streamInto(LocationTrack track, BoundedTrackBuffer buffer) {
+        for (int i = 0; i < track.size(); i++) {
+            buffer.accept(track.latitudes()[i], track.longitudes()[i]);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sixtymeters.thereabout.location.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryResolverTest {
+
+    private final CountryResolver countryResolver = new CountryResolver(new SimpleMeterRegistry());
+
+    @Test
+    void resolvesCountriesAndAnswersRepeatedCellsFromCache() {
+        assertThat(countryResolver.resolveIsoCode(47.3769, 8.5417)).isEqualTo("CH");
+        assertThat(countryResolver.resolveIsoCode(47.3770, 8.5418)).isEqualTo("CH");
+        assertThat(countryResolver.resolveIsoCode(48.8566, 2.3522)).isEqualTo("FR");
+        assertThat(countryResolver.resolveIsoCode(47.3769, 8.5417)).isEqualTo("CH");
+
+        assertThat(countryResolver.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void resolvesOpenWaterToNoCountry() {
+        assertThat(countryResolver.resolveIsoCode(0.0, -30.0)).isNull();
+        assertThat(countryResolver.resolveIsoCode(0.0, -30.0)).isNull();
+    }
+
+    @Test
+    void looksUpCountriesByIsoCode() {
+        assertThat(countryResolver.countryOfIso("CH"))
+                .isEqualTo(countryResolver.countries().filter(country -> country.iso().equals("CH")).findFirst());
+        assertThat(countryResolver.countryOfIso("XX")).isEmpty();
+        assertThat(countryResolver.countryOfIso(null)).isEmpty();
+    }
+}
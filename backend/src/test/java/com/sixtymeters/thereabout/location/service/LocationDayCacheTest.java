@@ -0,0 +1,103 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryCursor;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LocationDayCacheTest {
+
+    private static final LocalDate DAY = LocalDate.of(2004, 6, 7);
+
+    private LocationHistoryCursor locationHistoryCursor;
+    private LocationDayCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        locationHistoryCursor = mock(LocationHistoryCursor.class);
+        properties = new LocationDayCacheProperties();
+        doAnswer(invocation -> {
+            final LocalDateTime from = invocation.getArgument(0);
+            final Consumer<LocationHistoryEntity> consumer = invocation.getArgument(2);
+            consumer.accept(entryAt(from.plusHours(10).plusNanos(123_456_000)));
+            consumer.accept(entryAt(from.plusHours(11)));
+            return null;
+        }).when(locationHistoryCursor).forEachEntry(any(), any(), any());
+    }
+
+    @Test
+    void servesRepeatedReadsFromMemory() {
+        final var cache = new LocationDayCache(locationHistoryCursor, properties);
+
+        final var first = cache.getLocationHistory(DAY, DAY.plusDays(1));
+        final var second = cache.getLocationHistory(DAY, DAY.plusDays(1));
+
+        assertThat(second).hasSize(4);
+        assertThat(second).usingRecursiveFieldByFieldElementComparator().isEqualTo(first);
+        assertThat(second.getFirst().getTimestamp()).isEqualTo(DAY.atTime(10, 0, 0, 123_456_000));
+        assertThat(cache.hitRate()).isEqualTo(0.5);
+        verify(locationHistoryCursor).forEachEntry(eq(DAY.atStartOfDay()), eq(DAY.plusDays(1).atStartOfDay()), any());
+        verify(locationHistoryCursor, times(2)).forEachEntry(any(), any(), any());
+    }
+
+    @Test
+    void readsChangedDaysAgain() {
+        final var cache = new LocationDayCache(locationHistoryCursor, properties);
+        cache.getLocationHistory(DAY, DAY.plusDays(1));
+
+        cache.onLocationHistoryChanged(new LocationHistoryChangedEvent(Set.of(DAY)));
+        cache.getLocationHistory(DAY, DAY.plusDays(1));
+
+        verify(locationHistoryCursor, times(2)).forEachEntry(eq(DAY.atStartOfDay()), any(), any());
+        verify(locationHistoryCursor, times(1)).forEachEntry(eq(DAY.plusDays(1).atStartOfDay()), any(), any());
+    }
+
+    @Test
+    void evictsDaysBeyondTheMemoryBudget() {
+        properties.setMemoryBudget(DataSize.ofBytes(1));
+        final var cache = new LocationDayCache(locationHistoryCursor, properties);
+
+        cache.getLocationHistory(DAY, DAY);
+        cache.getLocationHistory(DAY, DAY);
+
+        verify(locationHistoryCursor, times(2)).forEachEntry(any(), any(), any());
+    }
+
+    @Test
+    void leavesLongRangesToTheDatabase() {
+        final var cache = new LocationDayCache(locationHistoryCursor, properties);
+
+        assertThat(cache.isCacheable(DAY, DAY.plusDays(6))).isTrue();
+        assertThat(cache.isCacheable(DAY, DAY.plusDays(7))).isFalse();
+        assertThat(cache.isCacheable(DAY, DAY.minusDays(1))).isFalse();
+    }
+
+    private static LocationHistoryEntity entryAt(LocalDateTime timestamp) {
+        return LocationHistoryEntity.builder()
+                .id((long) timestamp.getHour())
+                .timestamp(timestamp)
+                .latitude(47.3769)
+                .longitude(8.5417)
+                .horizontalAccuracy(5)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .estimatedIsoCountryCode("CH")
+                .note(timestamp.getHour() == 11 ? "lunch" : null)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationDaySummaryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2001, 8, 9);
+
+    @Autowired
+    private LocationDaySummaryService locationDaySummaryService;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Test
+    void summarizesEveryWrite() {
+        locationHistoryService.createLocationHistoryEntries(List.of(
+                entryAt(10, 47.3769, 8.5417, LocationHistorySource.GOOGLE_IMPORT),
+                entryAt(11, 47.3769, 8.5517, LocationHistorySource.GOOGLE_IMPORT)));
+        final var manualEntry = locationHistoryService.createLocationHistoryEntry(
+                entryAt(12, 46.9480, 7.4474, LocationHistorySource.THEREABOUT_API));
+
+        final var summary = locationDaySummaryService.getDaySummaries(DAY, DAY).getFirst();
+        assertThat(summary.pointCount()).isEqualTo(3);
+        assertThat(summary.firstFix()).isEqualTo(DAY.atTime(10, 0));
+        assertThat(summary.lastFix()).isEqualTo(DAY.atTime(12, 0));
+        assertThat(summary.lastLatitude()).isEqualTo(46.9480);
+        assertThat(summary.lastLongitude()).isEqualTo(7.4474);
+        assertThat(summary.boundingBox().south()).isEqualTo(46.9480);
+        assertThat(summary.boundingBox().north()).isEqualTo(47.3769);
+        assertThat(summary.boundingBox().west()).isEqualTo(7.4474);
+        assertThat(summary.boundingBox().east()).isEqualTo(8.5517);
+        // about 753m along the parallel in Zurich and 96.1km to Bern
+        assertThat(summary.distanceMeters()).isCloseTo(753 + 96_149, within(10.0));
+        assertThat(summary.countries()).containsExactly("CH");
+        assertThat(summary.pointsPerSource()).isEqualTo(Map.of(
+                LocationHistorySource.GOOGLE_IMPORT, 2,
+                LocationHistorySource.THEREABOUT_API, 1));
+
+        locationHistoryService.deleteLocationHistoryEntries(List.of(manualEntry.getId()));
+
+        final var afterDelete = locationDaySummaryService.getDaySummaries(DAY, DAY).getFirst();
+        assertThat(afterDelete.pointCount()).isEqualTo(2);
+        assertThat(afterDelete.distanceMeters()).isCloseTo(753, within(1.0));
+        assertThat(afterDelete.lastLongitude()).isEqualTo(8.5517);
+        assertThat(afterDelete.pointsPerSource()).containsOnlyKeys(LocationHistorySource.GOOGLE_IMPORT);
+        assertThat(locationDaySummaryService.getDaySummaries(DAY.plusDays(1), DAY.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void movingTheLastEntryOfADayRemovesItsSummary() {
+        final var entry = locationHistoryService.createLocationHistoryEntry(
+                entryAt(10, 47.3769, 8.5417, LocationHistorySource.THEREABOUT_API));
+
+        locationHistoryService.updateLocationHistoryEntry(entry.getId(), LocationHistoryEntity.builder()
+                .timestamp(DAY.plusDays(1).atTime(10, 0))
+                .latitude(47.3769)
+                .longitude(8.5417)
+                .build());
+
+        assertThat(locationDaySummaryService.getDaySummaries(DAY, DAY)).isEmpty();
+        assertThat(locationDaySummaryService.getDaySummaries(DAY.plusDays(1), DAY.plusDays(1)))
+                .singleElement()
+                .satisfies(summary -> assertThat(summary.pointsPerSource())
+                        .isEqualTo(Map.of(LocationHistorySource.THEREABOUT_API_UPDATE, 1)));
+    }
+
+    private static LocationHistoryEntity entryAt(int hour, double latitude, double longitude, LocationHistorySource source) {
+        return LocationHistoryEntity.builder()
+                .timestamp(DAY.atTime(hour, 0))
+                .latitude(latitude)
+                .longitude(longitude)
+                .source(source)
+                .build();
+    }
+}
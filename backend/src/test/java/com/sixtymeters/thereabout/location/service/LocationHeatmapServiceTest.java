@@ -0,0 +1,67 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.service.LocationHeatmapService.HeatmapPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationHeatmapServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2004, 6, 7);
+
+    @Autowired
+    private LocationHeatmapService locationHeatmapService;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Test
+    void countsNewEntriesPerCell() {
+        locationHistoryService.createLocationHistoryEntries(List.of(
+                entryAt(0, 47.3769, 8.5417),
+                entryAt(1, 47.3769, 8.5418),
+                entryAt(2, -33.8688, 151.2093)));
+
+        final var world = locationHeatmapService.getTile(0, 0, 0, DAY, DAY);
+        final var zurich = locationHeatmapService.getTile(8, 134, 89, DAY, DAY);
+
+        assertThat(world).extracting(HeatmapPoint::count).containsExactlyInAnyOrder(2L, 1L);
+        assertThat(zurich).hasSize(1);
+        assertThat(zurich.getFirst().count()).isEqualTo(2);
+        assertThat(zurich.getFirst().latitude()).isCloseTo(47.3769, within(0.01));
+        assertThat(zurich.getFirst().longitude()).isCloseTo(8.5417, within(0.01));
+        assertThat(locationHeatmapService.getTile(0, 0, 0, DAY.plusDays(1), DAY.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void rejectsTilesOutsideOfTheMap() {
+        assertThatThrownBy(() -> locationHeatmapService.getTile(2, 4, 0, DAY, DAY))
+                .isInstanceOf(ThereaboutException.class);
+        assertThatThrownBy(() -> locationHeatmapService.getTile(21, 0, 0, DAY, DAY))
+                .isInstanceOf(ThereaboutException.class);
+    }
+
+    private static LocationHistoryEntity entryAt(int minute, double latitude, double longitude) {
+        return LocationHistoryEntity.builder()
+                .timestamp(DAY.atTime(10, minute))
+                .latitude(latitude)
+                .longitude(longitude)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.BoundingBox;
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkWriter;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationTrackReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationHistoryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2001, 2, 3);
+    private static final BoundingBox ZURICH = new BoundingBox(47.3, 8.4, 47.5, 8.7);
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private LocationTrackReader locationTrackReader;
+
+    @Autowired
+    private TrackSimplifier trackSimplifier;
+
+    @Autowired
+    private LocationHistoryBulkWriter bulkWriter;
+
+    @Test
+    void simplifiesTheTrackWithinABoxWhileItIsRead() {
+        // 2000 entries in Zurich, followed by entries in Bern outside of the box
+        bulkWriter.insertAll(IntStream.range(0, 2500)
+                .mapToObj(i -> LocationHistoryEntity.builder()
+                        .timestamp(DAY.atStartOfDay().plusSeconds(i * 30L))
+                        .latitude(i < 2000 ? 47.3769 + Math.sin(i / 50.0) * 0.01 : 46.9480)
+                        .longitude(i < 2000 ? 8.45 + i * 0.0001 : 7.4474 + i * 0.0001)
+                        .source(LocationHistorySource.GOOGLE_IMPORT)
+                        .build())
+                .toList());
+
+        // a buffer much smaller than the range, it is compacted several times
+        final var buffer = new BoundedTrackBuffer(trackSimplifier, 200);
+        locationTrackReader.readTrackWithin(ZURICH, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), buffer);
+        final var track = buffer.toTrack(50);
+
+        assertThat(track.size()).isEqualTo(50);
+        assertThat(track.longitudes()[0]).isEqualTo(8.45);
+        assertThat(track.longitudes()[49]).isEqualTo(8.45 + 1999 * 0.0001);
+        assertThat(track.longitudes()).allSatisfy(longitude -> assertThat(longitude).isBetween(8.4, 8.7));
+        assertThat(locationHistoryService.getSparseLocationHistoryWithin(ZURICH, DAY, DAY, 50).size()).isEqualTo(50);
+    }
+}
@@ -0,0 +1,111 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationIngestFilterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2004, 6, 7, 10, 0);
+
+    private LocationIngestFilterProperties properties;
+    private LocationIngestFilter locationIngestFilter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LocationIngestFilterProperties();
+        locationIngestFilter = new LocationIngestFilter(properties);
+    }
+
+    @Test
+    void ignoresInaccurateEntries() {
+        final var precise = entryAt(0, 47.3769, 8.5417, 10);
+        final var cellTower = entryAt(300, 47.3789, 8.5417, 2000);
+
+        final var filtered = locationIngestFilter.filter(List.of(precise, cellTower));
+
+        assertThat(filtered.entries()).containsExactly(precise, cellTower);
+        assertThat(precise.isIgnoreEntry()).isFalse();
+        assertThat(cellTower.isIgnoreEntry()).isTrue();
+        assertThat(filtered.report()).isEqualTo(new LocationIngestFilterReport(1, 0, 0, 0));
+    }
+
+    @Test
+    void ignoresSpikesButNotJumpsAtTheEndOfABatch() {
+        final var rome = entryAt(120, 41.9028, 12.4964, 10);
+        final var sydney = entryAt(240, -33.8688, 151.2093, 10);
+
+        final var filtered = locationIngestFilter.filter(List.of(
+                entryAt(0, 47.3769, 8.5417, 10),
+                entryAt(60, 47.3789, 8.5417, 10),
+                rome,
+                entryAt(180, 47.3809, 8.5417, 10),
+                sydney));
+
+        assertThat(filtered.entries()).hasSize(5);
+        assertThat(filtered.entries()).filteredOn(LocationHistoryEntity::isIgnoreEntry).containsExactly(rome);
+        assertThat(filtered.report()).isEqualTo(new LocationIngestFilterReport(0, 1, 0, 0));
+    }
+
+    @Test
+    void dropsStationaryEntriesButKeepsOnePerInterval() {
+        final var first = entryAt(0, 47.3769, 8.5417, 10);
+        final var afterAMinute = entryAt(70, 47.3769, 8.5417, 10);
+
+        final var filtered = locationIngestFilter.filter(List.of(
+                afterAMinute,
+                entryAt(20, 47.37692, 8.5417, 10),
+                entryAt(10, 47.3769, 8.5417, 10),
+                first));
+
+        assertThat(filtered.entries()).containsExactly(first, afterAMinute);
+        assertThat(filtered.report()).isEqualTo(new LocationIngestFilterReport(0, 0, 2, 0));
+    }
+
+    @Test
+    void smoothsInaccurateEntriesTowardsPreciseOnes() {
+        properties.setSmoothing(true);
+        final var precise = entryAt(0, 47.3769, 8.5417, 5);
+        final var inaccurate = entryAt(120, 47.3779, 8.5417, 100);
+
+        final var filtered = locationIngestFilter.filter(List.of(precise, inaccurate));
+
+        assertThat(filtered.entries()).containsExactly(precise, inaccurate);
+        assertThat(precise.getLatitude()).isEqualTo(47.3769);
+        // about a tenth of the way, the precise entry is two minutes old
+        assertThat(inaccurate.getLatitude()).isBetween(47.37695, 47.37705);
+        assertThat(inaccurate.getRawLatitude()).isEqualTo(47.3779);
+        assertThat(precise.getRawLatitude()).isNull();
+        assertThat(filtered.report().smoothed()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesEntriesAloneWhenDisabled() {
+        properties.setEnabled(false);
+        final var entries = List.of(
+                entryAt(0, 47.3769, 8.5417, 2000),
+                entryAt(10, 47.3769, 8.5417, 2000));
+
+        final var filtered = locationIngestFilter.filter(entries);
+
+        assertThat(filtered.entries()).isEqualTo(entries);
+        assertThat(filtered.entries()).noneMatch(LocationHistoryEntity::isIgnoreEntry);
+        assertThat(filtered.report().isEmpty()).isTrue();
+    }
+
+    private static LocationHistoryEntity entryAt(int second, double latitude, double longitude, int horizontalAccuracy) {
+        return LocationHistoryEntity.builder()
+                .timestamp(START.plusSeconds(second))
+                .latitude(latitude)
+                .longitude(longitude)
+                .horizontalAccuracy(horizontalAccuracy)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkWriter;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistoryRepository;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationTrackPyramidRepository;
+import com.sixtymeters.thereabout.location.data.LocationTrackPyramidRepository.LevelSize;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationTrackPyramidTest {
+
+    private static final LocalDate DAY = LocalDate.of(2003, 5, 6);
+
+    @Autowired
+    private LocationTrackPyramid locationTrackPyramid;
+
+    @Autowired
+    private LocationTrackPyramidRepository locationTrackPyramidRepository;
+
+    @Autowired
+    private LocationHistoryBulkWriter bulkWriter;
+
+    @Autowired
+    private LocationHistoryRepository locationHistoryRepository;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Test
+    void rebuildDayStoresEveryLevelWithinItsBudget() {
+        bulkWriter.insertAll(IntStream.range(0, 2000)
+                .mapToObj(i -> LocationHistoryEntity.builder()
+                        .timestamp(DAY.atStartOfDay().plusSeconds(i * 30L))
+                        .latitude(47.3769 + Math.sin(i / 50.0) * 0.01)
+                        .longitude(8.5417 + i * 0.0001)
+                        .source(LocationHistorySource.GOOGLE_IMPORT)
+                        .build())
+                .toList());
+
+        locationTrackPyramid.rebuildDay(DAY);
+
+        assertThat(locationTrackPyramidRepository.findLevelSizes(DAY, DAY)).containsExactly(
+                new LevelSize(0, 16, 2000),
+                new LevelSize(1, 64, 2000),
+                new LevelSize(2, 256, 2000),
+                new LevelSize(3, 1024, 2000));
+        final var days = locationTrackPyramidRepository.readLevelDays(1, DAY.minusDays(1), DAY.plusDays(1));
+        assertThat(days).containsOnlyKeys(DAY);
+        final var level = days.get(DAY);
+        assertThat(level.size()).isEqualTo(64);
+        assertThat(level.latitudes()[0]).isEqualTo(47.3769);
+        assertThat(level.longitudes()[63]).isEqualTo(8.5417 + 1999 * 0.0001);
+    }
+
+    @Test
+    void rebuildDayRemovesDaysWithoutEntries() {
+        bulkWriter.insertAll(IntStream.range(0, 3)
+                .mapToObj(i -> LocationHistoryEntity.builder()
+                        .timestamp(DAY.atStartOfDay().plusMinutes(i))
+                        .latitude(47.3769 + i * 0.001)
+                        .longitude(8.5417)
+                        .source(LocationHistorySource.GOOGLE_IMPORT)
+                        .build())
+                .toList());
+        locationTrackPyramid.rebuildDay(DAY);
+        assertThat(locationTrackPyramidRepository.findLevelSizes(DAY, DAY))
+                .extracting(LevelSize::points)
+                .containsOnly(3L);
+
+        locationHistoryRepository.deleteAllInBatch(locationHistoryRepository.findAllByTimestampBetween(
+                DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        locationTrackPyramid.rebuildDay(DAY);
+
+        assertThat(locationTrackPyramidRepository.findLevelSizes(DAY, DAY)).isEmpty();
+    }
+
+    @Test
+    void writtenDaysLackAPyramidUntilTheyAreRebuilt() {
+        // the summary is written with the entries, the pyramid only after the commit
+        locationHistoryService.createLocationHistoryEntries(IntStream.range(0, 3)
+                .mapToObj(i -> LocationHistoryEntity.builder()
+                        .timestamp(DAY.atStartOfDay().plusMinutes(i))
+                        .latitude(47.3769 + i * 0.001)
+                        .longitude(8.5417)
+                        .source(LocationHistorySource.GOOGLE_IMPORT)
+                        .build())
+                .toList());
+        assertThat(locationTrackPyramidRepository.findDaysWithoutPyramid(DAY.minusDays(1), DAY.plusDays(1)))
+                .containsExactly(DAY);
+
+        locationTrackPyramid.rebuildDay(DAY);
+
+        assertThat(locationTrackPyramidRepository.findDaysWithoutPyramid(DAY.minusDays(1), DAY.plusDays(1))).isEmpty();
+    }
+}
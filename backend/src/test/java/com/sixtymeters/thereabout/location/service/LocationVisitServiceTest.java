@@ -0,0 +1,127 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryBulkWriter;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationVisit;
+import com.sixtymeters.thereabout.location.data.LocationVisitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LocationVisitServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2002, 3, 4);
+
+    @Autowired
+    private LocationVisitService locationVisitService;
+
+    @Autowired
+    private LocationVisitRepository locationVisitRepository;
+
+    @Autowired
+    private LocationHistoryBulkWriter bulkWriter;
+
+    @Test
+    void detectsStaysAndTheMovementBetweenThem() {
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        // home from 08:00 to 08:30, two entries on the way, the office from 08:45 to 09:30
+        for (int minute = 0; minute <= 30; minute += 5) {
+            entries.add(entryAt(8, minute, 47.3769 + minute * 0.00001, 8.5417));
+        }
+        entries.add(entryAt(8, 35, 47.40, 8.55));
+        entries.add(entryAt(8, 40, 47.43, 8.56));
+        for (int minute = 45; minute <= 90; minute += 5) {
+            entries.add(entryAt(8 + minute / 60, minute % 60, 47.45, 8.57));
+        }
+        // leaving the office, the start of a stay that may still continue
+        entries.add(entryAt(9, 35, 47.50, 8.60));
+        bulkWriter.insertAll(entries);
+
+        locationVisitService.detectVisits();
+
+        final var visits = locationVisitService.getVisits(DAY, DAY);
+        assertThat(visits).hasSize(2);
+        final var home = visits.getFirst();
+        assertThat(home.arrival()).isEqualTo(DAY.atTime(8, 0));
+        assertThat(home.departure()).isEqualTo(DAY.atTime(8, 30));
+        assertThat(home.dwell()).isEqualTo(Duration.ofMinutes(30));
+        assertThat(home.pointCount()).isEqualTo(7);
+        assertThat(home.latitude()).isCloseTo(47.3769 + 15 * 0.00001, within(1e-9));
+        assertThat(home.movementPointCount()).isZero();
+        final var office = visits.getLast();
+        assertThat(office.arrival()).isEqualTo(DAY.atTime(8, 45));
+        assertThat(office.departure()).isEqualTo(DAY.atTime(9, 30));
+        assertThat(office.pointCount()).isEqualTo(10);
+        assertThat(office.movementStart()).isEqualTo(DAY.atTime(8, 30));
+        assertThat(office.movementPointCount()).isEqualTo(2);
+        assertThat(office.movementDistanceMeters()).isGreaterThan(
+                VisitDetector.distanceMeters(home.latitude(), home.longitude(), 47.45, 8.57));
+        assertThat(locationVisitRepository.findWatermark()).contains(DAY.atTime(9, 30));
+    }
+
+    @Test
+    void continuesFromTheWatermark() {
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        for (int minute = 0; minute <= 20; minute += 5) {
+            entries.add(entryAt(10, minute, 47.3769, 8.5417));
+        }
+        entries.add(entryAt(10, 25, 47.45, 8.57));
+        bulkWriter.insertAll(entries);
+        locationVisitService.detectVisits();
+        assertThat(locationVisitService.getVisits(DAY, DAY)).hasSize(1);
+
+        bulkWriter.insertAll(List.of(
+                entryAt(10, 40, 47.45, 8.57),
+                entryAt(10, 45, 47.50, 8.60)));
+        locationVisitService.detectVisits();
+
+        final var visits = locationVisitService.getVisits(DAY, DAY);
+        assertThat(visits).extracting(LocationVisit::arrival)
+                .containsExactly(DAY.atTime(10, 0), DAY.atTime(10, 25));
+        assertThat(visits.getLast().movementStart()).isEqualTo(DAY.atTime(10, 20));
+        assertThat(visits.getLast().pointCount()).isEqualTo(2);
+    }
+
+    @Test
+    void detectsRewoundVisitsAgain() {
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        for (int minute = 0; minute <= 20; minute += 5) {
+            entries.add(entryAt(12, minute, 47.3769, 8.5417));
+            entries.add(entryAt(13, minute, 47.45, 8.57));
+        }
+        entries.add(entryAt(14, 0, 47.50, 8.60));
+        bulkWriter.insertAll(entries);
+        locationVisitService.detectVisits();
+        final var detected = locationVisitService.getVisits(DAY, DAY);
+
+        locationVisitRepository.rewindTo(DAY.atTime(13, 10));
+        assertThat(locationVisitService.getVisits(DAY, DAY)).hasSize(1);
+        assertThat(locationVisitRepository.findWatermark()).contains(DAY.atTime(12, 20));
+        locationVisitService.detectVisits();
+
+        assertThat(locationVisitService.getVisits(DAY, DAY)).hasSize(2).isEqualTo(detected);
+    }
+
+    private static LocationHistoryEntity entryAt(int hour, int minute, double latitude, double longitude) {
+        return LocationHistoryEntity.builder()
+                .timestamp(DAY.atTime(hour, minute))
+                .latitude(latitude)
+                .longitude(longitude)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .build();
+    }
+}
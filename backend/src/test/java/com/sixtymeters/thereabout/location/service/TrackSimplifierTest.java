@@ -0,0 +1,53 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationTrack;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackSimplifierTest {
+
+    private final TrackSimplifier trackSimplifier = new TrackSimplifier();
+
+    @Test
+    void keepsTheCornersOfAnLShapedRoute() {
+        // 0..10 east along the equator, then 10 steps north
+        final var latitudes = new double[21];
+        final var longitudes = new double[21];
+        for (int i = 0; i <= 20; i++) {
+            latitudes[i] = i <= 10 ? 0 : (i - 10) * 0.001;
+            longitudes[i] = Math.min(i, 10) * 0.001;
+        }
+
+        final var kept = trackSimplifier.simplify(new LocationTrack(latitudes, longitudes), 5);
+
+        // the corner is the only point off the straight line from start to end, the rest lie on the kept lines
+        assertThat(kept).containsExactly(0, 10, 20);
+    }
+
+    @Test
+    void returnsTheSamePointsForTheSameBudget() {
+        final var latitudes = new double[1000];
+        final var longitudes = new double[1000];
+        for (int i = 0; i < 1000; i++) {
+            latitudes[i] = 47.0 + Math.sin(i / 20.0) * 0.01;
+            longitudes[i] = 8.0 + i * 0.0001;
+        }
+        final var track = new LocationTrack(latitudes, longitudes);
+
+        final var first = trackSimplifier.simplify(track, 100);
+        final var second = trackSimplifier.simplify(track, 100);
+
+        assertThat(first).hasSize(100).containsExactly(second);
+        assertThat(first[0]).isZero();
+        assertThat(first[99]).isEqualTo(999);
+        assertThat(first).isSorted();
+    }
+
+    @Test
+    void returnsShortTracksUnchanged() {
+        final var track = new LocationTrack(new double[]{1, 2, 3}, new double[]{4, 5, 6});
+
+        assertThat(trackSimplifier.simplify(track, 10)).containsExactly(0, 1, 2);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.TripsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TripProposalServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2001, 5, 1);
+    private static final double[] ZURICH = {47.3769, 8.5417};
+    private static final double[] ROME = {41.9028, 12.4964};
+    private static final double[] MILAN = {45.4642, 9.1900};
+
+    @Autowired
+    private TripProposalService tripProposalService;
+
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
+    @Autowired
+    private TripsRepository tripsRepository;
+
+    @BeforeEach
+    void setUp() {
+        // nights at home for 40 days, except for three in Rome and one in Milan
+        final var entries = new ArrayList<LocationHistoryEntity>();
+        double[] previousNight = ZURICH;
+        for (int i = 0; i < 40; i++) {
+            final var day = FIRST_DAY.plusDays(i);
+            final double[] night = i >= 20 && i <= 22 ? ROME : i == 30 ? MILAN : ZURICH;
+            entries.add(entryAt(day, 8, previousNight));
+            entries.add(entryAt(day, 22, night));
+            previousNight = night;
+        }
+        locationHistoryService.createLocationHistoryEntries(entries);
+    }
+
+    @Test
+    void proposesNightsAwayFromHome() {
+        tripProposalService.detectTrips(null);
+
+        final var proposals = tripProposalService.getProposals();
+        assertThat(proposals).hasSize(1);
+        final var rome = proposals.getFirst();
+        assertThat(rome.getStart()).isEqualTo(FIRST_DAY.plusDays(20));
+        assertThat(rome.getEnd()).isEqualTo(FIRST_DAY.plusDays(23));
+        assertThat(rome.getCountries()).isEqualTo("CH,IT");
+        // about 684km each way
+        assertThat(rome.getDistanceMeters()).isCloseTo(2 * 684_177, within(1_000.0));
+    }
+
+    @Test
+    void acceptedProposalsBecomeTrips() {
+        tripProposalService.detectTrips(null);
+        final var proposal = tripProposalService.getProposals().getFirst();
+
+        final var trip = tripProposalService.acceptProposal(proposal.getId());
+        tripProposalService.detectTrips(FIRST_DAY.plusDays(21));
+
+        assertThat(tripsRepository.findById(trip.getId())).isPresent();
+        assertThat(trip.getStart()).isEqualTo(proposal.getStart());
+        assertThat(trip.getEnd()).isEqualTo(proposal.getEnd());
+        assertThat(trip.getTitle()).contains("Italy");
+        assertThat(tripProposalService.getProposals()).isEmpty();
+    }
+
+    @Test
+    void dismissedProposalsAreNotProposedAgain() {
+        tripProposalService.detectTrips(null);
+        tripProposalService.dismissProposal(tripProposalService.getProposals().getFirst().getId());
+
+        tripProposalService.detectTrips(null);
+
+        assertThat(tripProposalService.getProposals()).isEmpty();
+    }
+
+    private static LocationHistoryEntity entryAt(LocalDate day, int hour, double[] position) {
+        return LocationHistoryEntity.builder()
+                .timestamp(day.atTime(hour, 0))
+                .latitude(position[0])
+                .longitude(position[1])
+                .source(LocationHistorySource.THEREABOUT_API)
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.data.LocationVisit;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitDetectorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2002, 3, 4, 8, 0);
+
+    @Test
+    void passesThroughLongRunsOfEntriesWithoutRecursing() throws InterruptedException {
+        final var visits = new ArrayList<LocationVisit>();
+        final var failure = new AtomicReference<Throwable>();
+        final Runnable detection = () -> {
+            final var visitDetector = new VisitDetector(50, Duration.ofMinutes(10), null, visits::add);
+            // a burst of entries at the same spot that is too short to be a stay
+            for (int i = 0; i < 5_000; i++) {
+                visitDetector.accept(entryAt(START.plusNanos(i * 1_000_000L), 47.3769, 8.5417));
+            }
+            for (int minute = 1; minute <= 20; minute++) {
+                visitDetector.accept(entryAt(START.plusMinutes(minute), 47.45, 8.57));
+            }
+            visitDetector.accept(entryAt(START.plusMinutes(21), 47.50, 8.60));
+        };
+        // a small stack, every entry of the burst used to be one level of recursion
+        final var thread = new Thread(null, detection, "visit-detector", 256 * 1024);
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+
+        assertThat(failure.get()).isNull();
+        assertThat(visits).singleElement().satisfies(visit -> {
+            assertThat(visit.arrival()).isEqualTo(START.plusMinutes(1));
+            assertThat(visit.departure()).isEqualTo(START.plusMinutes(20));
+            assertThat(visit.movementStart()).isEqualTo(START);
+            assertThat(visit.movementPointCount()).isEqualTo(5_000);
+        });
+    }
+
+    private static LocationHistoryEntity entryAt(LocalDateTime timestamp, double latitude, double longitude) {
+        return LocationHistoryEntity.builder()
+                .timestamp(timestamp)
+                .latitude(latitude)
+                .longitude(longitude)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .build();
+    }
+}
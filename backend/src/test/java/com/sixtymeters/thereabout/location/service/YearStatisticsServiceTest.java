@@ -0,0 +1,98 @@
+package com.sixtymeters.thereabout.location.service;
+
+import com.sixtymeters.thereabout.location.data.CountryDayRepository;
+import com.sixtymeters.thereabout.location.data.CountryDayRepository.CountryDay;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository.DayRange;
+import com.sixtymeters.thereabout.location.data.LocationDaySummaryRepository.Totals;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics.ContinentDays;
+import com.sixtymeters.thereabout.location.service.statistics.YearStatistics.CountryDays;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class YearStatisticsServiceTest {
+
+    private static final CountryResolver COUNTRY_RESOLVER = new CountryResolver(new SimpleMeterRegistry());
+    private static final LocalDate NEW_YEARS_EVE = LocalDate.of(2019, 12, 31);
+    private static final LocalDate NEW_YEAR = LocalDate.of(2020, 1, 1);
+
+    private CountryDayRepository countryDayRepository;
+    private YearStatisticsService yearStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        countryDayRepository = mock(CountryDayRepository.class);
+        final var locationDaySummaryRepository = mock(LocationDaySummaryRepository.class);
+        yearStatisticsService = new YearStatisticsService(countryDayRepository, locationDaySummaryRepository, COUNTRY_RESOLVER);
+
+        when(locationDaySummaryRepository.findDayRange())
+                .thenReturn(Optional.of(new DayRange(NEW_YEARS_EVE, NEW_YEAR.plusDays(1))));
+        when(locationDaySummaryRepository.findTotals(LocalDate.of(2019, 1, 1), NEW_YEARS_EVE))
+                .thenReturn(new Totals(1, 1_000));
+        when(locationDaySummaryRepository.findTotals(NEW_YEAR, LocalDate.of(2020, 12, 31)))
+                .thenReturn(new Totals(2, 5_000));
+        when(countryDayRepository.findByDayBetween(LocalDate.of(2019, 1, 1), NEW_YEARS_EVE))
+                .thenReturn(List.of(new CountryDay("CH", NEW_YEARS_EVE)));
+        when(countryDayRepository.findByDayBetween(NEW_YEAR, LocalDate.of(2020, 12, 31))).thenReturn(List.of(
+                new CountryDay("CH", NEW_YEAR),
+                new CountryDay("FR", NEW_YEAR),
+                new CountryDay("FR", NEW_YEAR.plusDays(1)),
+                new CountryDay("JP", NEW_YEAR.plusDays(1))));
+        when(countryDayRepository.findFirstVisitedBetween(LocalDate.of(2019, 1, 1), NEW_YEARS_EVE))
+                .thenReturn(List.of("CH"));
+        when(countryDayRepository.findFirstVisitedBetween(NEW_YEAR, LocalDate.of(2020, 12, 31)))
+                .thenReturn(List.of("FR", "JP"));
+    }
+
+    @Test
+    void summarizesEveryYear() {
+        final var years = yearStatisticsService.getYearStatistics(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        assertThat(years).extracting(YearStatistics::year).containsExactly(2019, 2020);
+        final var year2020 = years.getLast();
+        assertThat(year2020.daysWithLocationHistory()).isEqualTo(2);
+        assertThat(year2020.distanceMeters()).isEqualTo(5_000);
+        assertThat(year2020.countries()).extracting(CountryDays::countryIsoCode, CountryDays::days)
+                .containsExactly(
+                        tuple("FR", 2),
+                        tuple("CH", 1),
+                        tuple("JP", 1));
+        assertThat(year2020.continents()).containsExactly(
+                new ContinentDays(continentOf("FR"), 2),
+                new ContinentDays(continentOf("JP"), 1));
+        assertThat(year2020.newCountries()).containsExactly("FR", "JP");
+        assertThat(yearStatisticsService.getYearStatistics(2020, 2030)).extracting(YearStatistics::year).containsExactly(2020);
+    }
+
+    @Test
+    void recalculatesChangedAndLaterYearsOnly() {
+        yearStatisticsService.getYearStatistics(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        yearStatisticsService.getYearStatistics(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        verify(countryDayRepository, times(1)).findByDayBetween(LocalDate.of(2019, 1, 1), NEW_YEARS_EVE);
+        verify(countryDayRepository, times(1)).findByDayBetween(NEW_YEAR, LocalDate.of(2020, 12, 31));
+
+        yearStatisticsService.onLocationHistoryChanged(new LocationHistoryChangedEvent(Set.of(NEW_YEAR)));
+        yearStatisticsService.getYearStatistics(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        verify(countryDayRepository, times(1)).findByDayBetween(LocalDate.of(2019, 1, 1), NEW_YEARS_EVE);
+        verify(countryDayRepository, times(2)).findByDayBetween(NEW_YEAR, LocalDate.of(2020, 12, 31));
+    }
+
+    private static String continentOf(String iso) {
+        return COUNTRY_RESOLVER.countryOfIso(iso).orElseThrow().continent();
+    }
+}
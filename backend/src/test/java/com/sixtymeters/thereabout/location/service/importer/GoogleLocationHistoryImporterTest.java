@@ -0,0 +1,76 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleLocationHistoryImporterTest {
+
+    private final GoogleLocationHistoryImporter importer = new GoogleLocationHistoryImporter();
+
+    @Test
+    void importLocationHistory_streamsEntriesInFixedSizeChunks() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-records-sample.json").toURI());
+        List<LocationHistoryChunk> chunks = new ArrayList<>();
+
+        long parsed = importer.importLocationHistory(sampleFile, 2, chunks::add);
+
+        assertThat(parsed).isEqualTo(3);
+        assertThat(chunks).extracting(chunk -> chunk.entries().size()).containsExactly(2, 1);
+        assertThat(chunks.getLast().bytesRead()).isEqualTo(sampleFile.length());
+        assertThat(chunks.getLast().totalBytes()).isEqualTo(sampleFile.length());
+
+        LocationHistoryEntity first = chunks.getFirst().entries().getFirst();
+        assertThat(first.getTimestamp()).isEqualTo(LocalDateTime.of(2023, 5, 1, 8, 15, 30, 123_000_000));
+        assertThat(first.getLatitude()).isEqualTo(47.3769);
+        assertThat(first.getLongitude()).isEqualTo(8.5417);
+        assertThat(first.getHorizontalAccuracy()).isEqualTo(12);
+        assertThat(first.getAltitude()).isEqualTo(410);
+        assertThat(first.getSource()).isEqualTo(LocationHistorySource.GOOGLE_IMPORT);
+        assertThat(first.getSensorSource()).isEqualTo("WIFI");
+        assertThat(first.getDeviceTag()).isEqualTo("1234567");
+    }
+
+    @Test
+    void importLocationHistory_passesOnCancellation() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-records-sample.json").toURI());
+
+        assertThatThrownBy(() -> importer.importLocationHistory(sampleFile, 0, 1, chunk -> {
+            throw new CancellationException("stopped");
+        })).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    void importLocationHistory_resumesAfterSkippedRecords() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-records-sample.json").toURI());
+        List<LocationHistoryChunk> chunks = new ArrayList<>();
+
+        long parsed = importer.importLocationHistory(sampleFile, 2, 2, chunks::add);
+
+        assertThat(parsed).isEqualTo(1);
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.getFirst().recordsRead()).isEqualTo(3);
+        assertThat(chunks.getFirst().entries()).extracting(LocationHistoryEntity::getLatitude).containsExactly(46.5197);
+    }
+
+    @Test
+    void importLocationHistory_rejectsFilesWithoutLocations() throws Exception {
+        Path emptyExport = Files.createTempFile("records", ".json");
+        Files.writeString(emptyExport, "{\"locations\": []}");
+
+        assertThatThrownBy(() -> importer.importLocationHistory(emptyExport.toFile(), 2, chunk -> { }))
+                .isInstanceOf(ThereaboutException.class);
+    }
+}
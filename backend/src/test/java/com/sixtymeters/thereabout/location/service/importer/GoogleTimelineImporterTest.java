@@ -0,0 +1,92 @@
+package com.sixtymeters.thereabout.location.service.importer;
+
+import com.sixtymeters.thereabout.config.ThereaboutException;
+import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
+import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleTimelineImporterTest {
+
+    private final GoogleTimelineImporter importer = new GoogleTimelineImporter();
+
+    @Test
+    void importLocationHistory_expandsSegmentsAndRawSignals() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-timeline-sample.json").toURI());
+        List<LocationHistoryChunk> chunks = new ArrayList<>();
+
+        long parsed = importer.importLocationHistory(sampleFile, 0, 3, chunks::add);
+
+        assertThat(parsed).isEqualTo(5);
+        assertThat(chunks).extracting(chunk -> chunk.entries().size()).containsExactly(3, 2);
+        assertThat(chunks.getLast().recordsRead()).isEqualTo(5);
+        assertThat(chunks.getLast().bytesRead()).isEqualTo(sampleFile.length());
+
+        List<LocationHistoryEntity> entries = chunks.stream().flatMap(chunk -> chunk.entries().stream()).toList();
+        assertThat(entries).extracting(LocationHistoryEntity::getSensorSource)
+                .containsExactly("TIMELINE_PATH", "TIMELINE_PATH", "VISIT", "VISIT", "GPS");
+        assertThat(entries).extracting(LocationHistoryEntity::getSource).containsOnly(LocationHistorySource.GOOGLE_TIMELINE_IMPORT);
+
+        LocationHistoryEntity pathPoint = entries.getFirst();
+        assertThat(pathPoint.getTimestamp()).isEqualTo(LocalDateTime.of(2024, 3, 1, 7, 2));
+        assertThat(pathPoint.getLatitude()).isEqualTo(47.3769);
+        assertThat(pathPoint.getLongitude()).isEqualTo(8.5417);
+
+        assertThat(entries.get(3).getTimestamp()).isEqualTo(LocalDateTime.of(2024, 3, 1, 11, 30));
+
+        LocationHistoryEntity position = entries.getLast();
+        assertThat(position.getLatitude()).isEqualTo(46.5197);
+        assertThat(position.getHorizontalAccuracy()).isEqualTo(13);
+        assertThat(position.getAltitude()).isEqualTo(410);
+        assertThat(position.getVelocity()).isEqualTo(3);
+    }
+
+    @Test
+    void importLocationHistory_passesOnCancellation() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-timeline-sample.json").toURI());
+
+        assertThatThrownBy(() -> importer.importLocationHistory(sampleFile, 0, 1, chunk -> {
+            throw new CancellationException("stopped");
+        })).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    void importLocationHistory_resumesAfterSkippedRecords() throws Exception {
+        File sampleFile = new File(getClass().getResource("/google-timeline-sample.json").toURI());
+        List<LocationHistoryChunk> chunks = new ArrayList<>();
+
+        long parsed = importer.importLocationHistory(sampleFile, 4, 3, chunks::add);
+
+        assertThat(parsed).isEqualTo(1);
+        assertThat(chunks.getFirst().entries()).extracting(LocationHistoryEntity::getSensorSource).containsExactly("GPS");
+    }
+
+    @Test
+    void importLocationHistory_rejectsRecordsExports() throws Exception {
+        File recordsFile = new File(getClass().getResource("/google-records-sample.json").toURI());
+
+        assertThatThrownBy(() -> importer.importLocationHistory(recordsFile, 0, 3, chunk -> { }))
+                .isInstanceOf(ThereaboutException.class);
+    }
+
+    @Test
+    void importLocationHistory_rejectsMalformedCoordinates() throws Exception {
+        Path export = Files.createTempFile("timeline", ".json");
+        Files.writeString(export, """
+                {"semanticSegments": [{"timelinePath": [{"point": "somewhere", "time": "2024-03-01T08:02:00.000+01:00"}]}]}
+                """);
+
+        assertThatThrownBy(() -> importer.importLocationHistory(export.toFile(), 0, 3, chunk -> { }))
+                .isInstanceOf(ThereaboutException.class);
+    }
+}
@@ -6,7 +6,10 @@ import com.sixtymeters.thereabout.generated.model.GenAddGeoJsonLocationRequest;
 import com.sixtymeters.thereabout.generated.model.GenGeoJsonLocation;
 import com.sixtymeters.thereabout.generated.model.GenGeoJsonLocationGeometry;
 import com.sixtymeters.thereabout.generated.model.GenGeoJsonLocationProperties;
+import com.sixtymeters.thereabout.generated.model.GenLocationBulkOperation;
+import com.sixtymeters.thereabout.generated.model.GenLocationBulkResult;
 import com.sixtymeters.thereabout.generated.model.GenLocationHistoryEntry;
+import com.sixtymeters.thereabout.generated.model.GenSparseLocationHistoryEntry;
 import com.sixtymeters.thereabout.client.data.ConfigurationEntity;
 import com.sixtymeters.thereabout.client.data.ConfigurationKey;
 import com.sixtymeters.thereabout.client.data.ConfigurationRepository;
@@ -18,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,10 +31,15 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -119,6 +128,104 @@ class LocationHistoryControllerTest {
                 .isEqualTo("ok");
     }
 
+    @Test
+    void testAddGeoJsonLocationBatch() throws Exception {
+        OffsetDateTime recordedAt = OffsetDateTime.parse("2002-03-04T10:00:00Z");
+        GenGeoJsonLocation withoutTimestamp = geoJsonPoint(8.5417, 47.3769, recordedAt);
+        withoutTimestamp.getProperties().setTimestamp(null);
+        GenAddGeoJsonLocationRequest request = GenAddGeoJsonLocationRequest.builder()
+                .locations(List.of(
+                        geoJsonPoint(8.5417, 47.3769, recordedAt),
+                        geoJsonPoint(8.5420, 47.3770, recordedAt.plusSeconds(30)),
+                        geoJsonPoint(8.5420, 147.3770, recordedAt.plusSeconds(60)),
+                        withoutTimestamp))
+                .build();
+
+        GenAddGeoJsonLocation200Response firstResponse = postGeoJson(request, null);
+        GenAddGeoJsonLocation200Response overlappingResponse = postGeoJson(GenAddGeoJsonLocationRequest.builder()
+                .locations(List.of(
+                        geoJsonPoint(8.5417, 47.3769, recordedAt),
+                        geoJsonPoint(8.5430, 47.3780, recordedAt.plusSeconds(90))))
+                .build(), null);
+
+        assertThat(firstResponse)
+                .extracting("result", "accepted", "duplicates", "rejected", "replayed")
+                .containsExactly("ok", 2, 0, 2, false);
+        assertThat(overlappingResponse)
+                .extracting("accepted", "duplicates", "rejected", "replayed")
+                .containsExactly(1, 1, 0, false);
+        List<LocationHistoryEntity> stored = locationHistoryRepository.findAllByTimestampBetween(
+                LocalDate.of(2002, 3, 4).atStartOfDay(), LocalDate.of(2002, 3, 5).atStartOfDay());
+        assertThat(stored)
+                .extracting(LocationHistoryEntity::getEstimatedIsoCountryCode, LocationHistoryEntity::getSource)
+                .containsOnly(tuple("CH", LocationHistorySource.THEREABOUT_API));
+        assertThat(stored).hasSize(3);
+    }
+
+    @Test
+    void testAddGeoJsonLocationReplay() throws Exception {
+        OffsetDateTime recordedAt = OffsetDateTime.parse("2002-04-05T10:00:00Z");
+        GenAddGeoJsonLocationRequest request = GenAddGeoJsonLocationRequest.builder()
+                .locations(List.of(
+                        geoJsonPoint(8.5417, 47.3769, recordedAt),
+                        geoJsonPoint(8.5420, 147.3770, recordedAt.plusSeconds(30))))
+                .build();
+        GenAddGeoJsonLocationRequest retriedWithKey = GenAddGeoJsonLocationRequest.builder()
+                .locations(List.of(geoJsonPoint(8.5440, 47.3790, recordedAt.plusSeconds(60))))
+                .build();
+
+        GenAddGeoJsonLocation200Response firstResponse = postGeoJson(request, null);
+        GenAddGeoJsonLocation200Response resentResponse = postGeoJson(request, null);
+        GenAddGeoJsonLocation200Response keyedResponse = postGeoJson(request, "batch-42");
+        GenAddGeoJsonLocation200Response keyedRetryResponse = postGeoJson(retriedWithKey, "batch-42");
+
+        assertThat(firstResponse)
+                .extracting("accepted", "duplicates", "rejected", "replayed")
+                .containsExactly(1, 0, 1, false);
+        assertThat(resentResponse)
+                .extracting("accepted", "duplicates", "rejected", "replayed")
+                .containsExactly(1, 0, 1, true);
+        assertThat(keyedResponse)
+                .extracting("accepted", "duplicates", "rejected", "replayed")
+                .containsExactly(0, 1, 1, false);
+        assertThat(keyedRetryResponse)
+                .extracting("accepted", "duplicates", "rejected", "replayed")
+                .containsExactly(0, 1, 1, true);
+        assertThat(locationHistoryRepository.findAllByTimestampBetween(
+                LocalDate.of(2002, 4, 5).atStartOfDay(), LocalDate.of(2002, 4, 6).atStartOfDay()))
+                .hasSize(1);
+    }
+
+    private GenAddGeoJsonLocation200Response postGeoJson(GenAddGeoJsonLocationRequest request, String idempotencyKey) throws Exception {
+        var requestBuilder = post("/backend/api/v1/location/geojson")
+                .header("Authorization", "Bearer " + testApiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request));
+        if (idempotencyKey != null) {
+            requestBuilder = requestBuilder.header("Idempotency-Key", idempotencyKey);
+        }
+        String responseContent = mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(responseContent, GenAddGeoJsonLocation200Response.class);
+    }
+
+    private static GenGeoJsonLocation geoJsonPoint(double longitude, double latitude, OffsetDateTime timestamp) {
+        return GenGeoJsonLocation.builder()
+                .type(GenGeoJsonLocation.TypeEnum.FEATURE)
+                .geometry(GenGeoJsonLocationGeometry.builder()
+                        .type(GenGeoJsonLocationGeometry.TypeEnum.POINT)
+                        .coordinates(List.of(BigDecimal.valueOf(longitude), BigDecimal.valueOf(latitude)))
+                        .build())
+                .properties(GenGeoJsonLocationProperties.builder()
+                        .timestamp(timestamp)
+                        .horizontalAccuracy(BigDecimal.valueOf(10))
+                        .build())
+                .build();
+    }
+
     @Test
     void testAddLocation() throws Exception {
         // When adding, provide a dummy id (controller will set it to null)
@@ -196,6 +303,91 @@ class LocationHistoryControllerTest {
         assertThat(locationHistoryRepository.findById(location2.getId())).isEmpty();
     }
 
+    @Test
+    void testBulkIgnoreLocationsOfDevice() throws Exception {
+        final var timestamp = testLocation.getTimestamp();
+        saveJitter("faulty-phone", timestamp.plusSeconds(1), 47.3770, 500);
+        saveJitter("faulty-phone", timestamp.plusSeconds(2), 47.3771, 30);
+        saveJitter("other-phone", timestamp.plusSeconds(3), 47.3772, 500);
+        final var operation = GenLocationBulkOperation.builder()
+                .action(GenLocationBulkOperation.ActionEnum.IGNORE)
+                .from(OffsetDateTime.of(timestamp.minusHours(1), ZoneOffset.UTC))
+                .to(OffsetDateTime.of(timestamp.plusHours(1), ZoneOffset.UTC))
+                .deviceTag("faulty-phone")
+                .horizontalAccuracyAbove(100)
+                .build();
+
+        assertThat(applyBulkOperation(operation))
+                .extracting(GenLocationBulkResult::getAffectedEntries, GenLocationBulkResult::getAffectedDays)
+                .containsExactly(1, 1);
+        // already ignored entries are not counted again
+        assertThat(applyBulkOperation(operation).getAffectedEntries()).isZero();
+    }
+
+    @Test
+    void testBulkDeleteLocationsInBoundingBox() throws Exception {
+        final var timestamp = testLocation.getTimestamp();
+        final var paris = saveJitter("faulty-phone", timestamp.plusSeconds(1), 48.8566, 10);
+        final var operation = GenLocationBulkOperation.builder()
+                .action(GenLocationBulkOperation.ActionEnum.DELETE)
+                .from(OffsetDateTime.of(timestamp.minusHours(1), ZoneOffset.UTC))
+                .to(OffsetDateTime.of(timestamp.plusHours(1), ZoneOffset.UTC))
+                .south(47.3)
+                .west(8.4)
+                .north(47.5)
+                .east(8.7)
+                .build();
+
+        assertThat(applyBulkOperation(operation).getAffectedEntries()).isEqualTo(1);
+        assertThat(locationHistoryRepository.findAllByTimestampBetween(timestamp.minusHours(1), timestamp.plusHours(1)))
+                .extracting(LocationHistoryEntity::getId)
+                .containsExactly(paris.getId());
+    }
+
+    @Test
+    void testBulkOperationRejectsEmptyTimeRange() throws Exception {
+        final var timestamp = OffsetDateTime.of(testLocation.getTimestamp(), ZoneOffset.UTC);
+        final var operation = GenLocationBulkOperation.builder()
+                .action(GenLocationBulkOperation.ActionEnum.DELETE)
+                .from(timestamp)
+                .to(timestamp)
+                .build();
+
+        mockMvc.perform(post("/backend/api/v1/location/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operation)))
+                .andExpect(status().isBadRequest());
+        assertThat(locationHistoryRepository.findById(testLocation.getId())).isPresent();
+    }
+
+    private LocationHistoryEntity saveJitter(String deviceTag, LocalDateTime timestamp, double latitude, int horizontalAccuracy) {
+        return locationHistoryRepository.save(LocationHistoryEntity.builder()
+                .timestamp(timestamp)
+                .latitude(latitude)
+                .longitude(2.3522)
+                .horizontalAccuracy(horizontalAccuracy)
+                .verticalAccuracy(5)
+                .altitude(35)
+                .heading(0)
+                .velocity(0)
+                .source(LocationHistorySource.THEREABOUT_API)
+                .deviceTag(deviceTag)
+                .ignoreEntry(false)
+                .build());
+    }
+
+    private GenLocationBulkResult applyBulkOperation(GenLocationBulkOperation operation) throws Exception {
+        String responseContent = mockMvc.perform(post("/backend/api/v1/location/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(operation)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readValue(responseContent, GenLocationBulkResult.class);
+    }
+
     @Test
     void testGetLocations() throws Exception {
         String responseContent = mockMvc.perform(get("/backend/api/v1/location"))
@@ -239,6 +431,112 @@ class LocationHistoryControllerTest {
         assertThat(response).isNotEmpty();
     }
 
+    @Test
+    void testGetLocationsNotModified() throws Exception {
+        String day = "2003-05-06";
+        String etag = mockMvc.perform(get("/backend/api/v1/location").param("from", day).param("to", day))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/backend/api/v1/location").param("from", day).param("to", day)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        GenLocationHistoryEntry locationEntry = GenLocationHistoryEntry.builder()
+                .id(BigDecimal.ZERO)
+                .timestamp(OffsetDateTime.parse(day + "T12:00:00Z"))
+                .latitude(46.5197)
+                .longitude(6.6323)
+                .build();
+        mockMvc.perform(post("/backend/api/v1/location")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(locationEntry)))
+                .andExpect(status().isOk());
+
+        String changedEtag = mockMvc.perform(get("/backend/api/v1/location").param("from", day).param("to", day)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(changedEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    void testGetSparseLocationsEtagDependsOnMediaType() throws Exception {
+        String day = testLocation.getTimestamp().toLocalDate().toString();
+        String jsonEtag = mockMvc.perform(get("/backend/api/v1/location/sparse").param("from", day).param("to", day)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        String polylineEtag = mockMvc.perform(get("/backend/api/v1/location/sparse").param("from", day).param("to", day)
+                        .accept(LocationPolylineMessageConverter.POLYLINE)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(LocationPolylineMessageConverter.POLYLINE))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(polylineEtag).isNotEqualTo(jsonEtag);
+    }
+
+    @Test
+    void testStreamLocations() throws Exception {
+        LocalDate today = testLocation.getTimestamp().toLocalDate();
+
+        String responseContent = mockMvc.perform(get("/backend/api/v1/location/stream")
+                        .param("from", today.toString())
+                        .param("to", today.toString())
+                        .accept(LocationHistoryStreamController.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(LocationHistoryStreamController.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<GenLocationHistoryEntry> entries = responseContent.lines()
+                .map(line -> objectMapper.readValue(line, GenLocationHistoryEntry.class))
+                .toList();
+        assertThat(entries)
+                .extracting(GenLocationHistoryEntry::getId)
+                .contains(BigDecimal.valueOf(testLocation.getId()));
+        assertThat(entries)
+                .filteredOn(entry -> entry.getId().equals(BigDecimal.valueOf(testLocation.getId())))
+                .singleElement()
+                .extracting(GenLocationHistoryEntry::getLatitude, GenLocationHistoryEntry::getEstimatedIsoCountryCode)
+                .containsExactly(47.3769, "CH");
+    }
+
+    @Test
+    void testGetLocationsAsPolyline() throws Exception {
+        LocalDate today = testLocation.getTimestamp().toLocalDate();
+
+        String responseContent = mockMvc.perform(get("/backend/api/v1/location")
+                        .param("from", today.toString())
+                        .param("to", today.toString())
+                        .accept(LocationPolylineMessageConverter.POLYLINE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(LocationPolylineMessageConverter.POLYLINE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(responseContent)
+                .isNotBlank()
+                .doesNotStartWith("[")
+                // the latitude of the test location, encoded absolute as the first value
+                .startsWith("shd`H");
+    }
+
     @Test
     void testGetSparseLocations() throws Exception {
         String responseContent = mockMvc.perform(get("/backend/api/v1/location/sparse"))
@@ -261,6 +559,47 @@ class LocationHistoryControllerTest {
         }
     }
 
+    @Test
+    void testGetLocationsInBoundingBox() throws Exception {
+        LocalDate today = testLocation.getTimestamp().toLocalDate();
+
+        assertThat(getLocationsInBoundingBox(today, 47.3, 8.4, 47.5, 8.7))
+                .anySatisfy(entry -> assertThat(entry)
+                        .extracting(GenSparseLocationHistoryEntry::getLatitude, GenSparseLocationHistoryEntry::getLongitude)
+                        .containsExactly(47.3769, 8.5417));
+        // the same latitudes, but a box from the Pacific across the antimeridian
+        assertThat(getLocationsInBoundingBox(today, 47.3, 170, 47.5, -170)).isEmpty();
+        // almost the whole world, east from 8.4 across the antimeridian back to 8.3
+        assertThat(getLocationsInBoundingBox(today, 47.3, 8.4, 47.5, 8.3)).isNotEmpty();
+    }
+
+    @Test
+    void testGetLocationsInBoundingBoxRejectsInvertedLatitudes() throws Exception {
+        mockMvc.perform(get("/backend/api/v1/location/bbox")
+                        .param("south", "47.5")
+                        .param("west", "8.4")
+                        .param("north", "47.3")
+                        .param("east", "8.7"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<GenSparseLocationHistoryEntry> getLocationsInBoundingBox(LocalDate day, double south, double west,
+                                                                          double north, double east) throws Exception {
+        String responseContent = mockMvc.perform(get("/backend/api/v1/location/bbox")
+                        .param("south", String.valueOf(south))
+                        .param("west", String.valueOf(west))
+                        .param("north", String.valueOf(north))
+                        .param("east", String.valueOf(east))
+                        .param("from", day.toString())
+                        .param("to", day.toString()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return List.of(objectMapper.readValue(responseContent, GenSparseLocationHistoryEntry[].class));
+    }
+
     @Test
     void testUpdateLocation() throws Exception {
         GenLocationHistoryEntry updateRequest = GenLocationHistoryEntry.builder()
@@ -0,0 +1,82 @@
+package com.sixtymeters.thereabout.location.transport;
+
+import com.sixtymeters.thereabout.generated.model.GenLocationHistoryEntry;
+import com.sixtymeters.thereabout.generated.model.GenSparseLocationHistoryEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationPolylineMessageConverterTest {
+
+    private final LocationPolylineMessageConverter converter = new LocationPolylineMessageConverter();
+
+    @Test
+    void writesSparseEntriesAsGooglePolyline() throws Exception {
+        // the example of the Google Maps documentation
+        final var entries = List.of(
+                sparseEntry(38.5, -120.2),
+                sparseEntry(40.7, -120.95),
+                sparseEntry(43.252, -126.453));
+        final var outputMessage = new MockHttpOutputMessage();
+
+        converter.write(entries, LocationPolylineMessageConverter.POLYLINE, outputMessage);
+
+        assertThat(outputMessage.getBodyAsString()).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void writesTimestampDeltasOfFullEntriesAsThirdValue() throws Exception {
+        final var start = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        final var entries = List.of(
+                fullEntry(38.5, -120.2, start),
+                fullEntry(38.5, -120.2, start.plusSeconds(1)));
+        final var outputMessage = new MockHttpOutputMessage();
+
+        converter.write(entries, LocationPolylineMessageConverter.POLYLINE, outputMessage);
+
+        final var expected = new StringBuilder("_p~iF~ps|U");
+        LocationPolylineMessageConverter.appendValue(expected, start.toEpochSecond());
+        expected.append("??A");
+        assertThat(outputMessage.getBodyAsString()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void onlyWritesThePolylineMediaType() {
+        assertThat(converter.canWrite(List.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(List.class, LocationPolylineMessageConverter.POLYLINE)).isTrue();
+        assertThat(converter.canRead(List.class, LocationPolylineMessageConverter.POLYLINE)).isFalse();
+    }
+
+    @Test
+    void negotiatesThePolylineOnlyWhenItIsPreferred() {
+        final var polyline = LocationPolylineMessageConverter.POLYLINE;
+
+        assertThat(LocationPolylineMessageConverter.negotiate(null)).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(LocationPolylineMessageConverter.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(LocationPolylineMessageConverter.negotiate(polyline.toString())).isEqualTo(polyline);
+        assertThat(LocationPolylineMessageConverter.negotiate("*/*, " + polyline)).isEqualTo(polyline);
+        assertThat(LocationPolylineMessageConverter.negotiate(polyline + ";q=0.5, application/json")).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    private static GenSparseLocationHistoryEntry sparseEntry(double latitude, double longitude) {
+        return GenSparseLocationHistoryEntry.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+
+    private static GenLocationHistoryEntry fullEntry(double latitude, double longitude, OffsetDateTime timestamp) {
+        return GenLocationHistoryEntry.builder()
+                .id(BigDecimal.ONE)
+                .latitude(latitude)
+                .longitude(longitude)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -3,8 +3,8 @@ package com.sixtymeters.thereabout.location.transport;
 import tools.jackson.databind.json.JsonMapper;
 import com.sixtymeters.thereabout.generated.model.GenUserStatistics;
 import com.sixtymeters.thereabout.location.data.LocationHistoryEntity;
-import com.sixtymeters.thereabout.location.data.LocationHistoryRepository;
 import com.sixtymeters.thereabout.location.data.LocationHistorySource;
+import com.sixtymeters.thereabout.location.service.LocationHistoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,18 +31,18 @@ class StatisticsControllerTest {
     private MockMvc mockMvc;
 
     @Autowired
-    private LocationHistoryRepository locationHistoryRepository;
+    private LocationHistoryService locationHistoryService;
 
     @Autowired
     private JsonMapper objectMapper;
 
     @BeforeEach
     void setUp() {
-        // Set up location history entries with different country codes
+        // Set up location history entries with different country codes, through the service so country_day is updated
         LocalDate baseDate = LocalDate.now().minusDays(30);
 
         // Switzerland entries - multiple days
-        locationHistoryRepository.save(LocationHistoryEntity.builder()
+        locationHistoryService.createLocationHistoryEntry(LocationHistoryEntity.builder()
                 .timestamp(LocalDateTime.of(baseDate.plusDays(1), java.time.LocalTime.of(10, 0)))
                 .latitude(47.3769)
                 .longitude(8.5417)
@@ -56,7 +56,7 @@ class StatisticsControllerTest {
                 .ignoreEntry(false)
                 .build());
 
-        locationHistoryRepository.save(LocationHistoryEntity.builder()
+        locationHistoryService.createLocationHistoryEntry(LocationHistoryEntity.builder()
                 .timestamp(LocalDateTime.of(baseDate.plusDays(2), java.time.LocalTime.of(14, 0)))
                 .latitude(46.5197)
                 .longitude(6.6323)
@@ -71,7 +71,7 @@ class StatisticsControllerTest {
                 .build());
 
         // France entries
-        locationHistoryRepository.save(LocationHistoryEntity.builder()
+        locationHistoryService.createLocationHistoryEntry(LocationHistoryEntity.builder()
                 .timestamp(LocalDateTime.of(baseDate.plusDays(5), java.time.LocalTime.of(12, 0)))
                 .latitude(48.8566)
                 .longitude(2.3522)
@@ -85,7 +85,7 @@ class StatisticsControllerTest {
                 .ignoreEntry(false)
                 .build());
 
-        locationHistoryRepository.save(LocationHistoryEntity.builder()
+        locationHistoryService.createLocationHistoryEntry(LocationHistoryEntity.builder()
                 .timestamp(LocalDateTime.of(baseDate.plusDays(6), java.time.LocalTime.of(16, 0)))
                 .latitude(45.7640)
                 .longitude(4.8357)
@@ -100,7 +100,7 @@ class StatisticsControllerTest {
                 .build());
 
         // Germany entry
-        locationHistoryRepository.save(LocationHistoryEntity.builder()
+        locationHistoryService.createLocationHistoryEntry(LocationHistoryEntity.builder()
                 .timestamp(LocalDateTime.of(baseDate.plusDays(10), java.time.LocalTime.of(11, 0)))
                 .latitude(52.5200)
                 .longitude(13.4050)
@@ -148,5 +148,6 @@ class StatisticsControllerTest {
                 .doesNotContainNull();
         assertThat(chStat.getFirstVisit()).isNotNull();
         assertThat(chStat.getLastVisit()).isNotNull();
+        assertThat(chStat.getNumberOfDaysSpent()).isEqualByComparingTo("2");
     }
 }
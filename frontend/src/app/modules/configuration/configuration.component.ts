@@ -85,6 +85,12 @@ export class ConfigurationComponent implements OnInit {
             accept: '.json',
             description: 'Upload your <a href="https://takeout.google.com/" target="_blank">Google Maps <b>Records.json</b></a> here. It will then be imported into Thereabout. Beware that for large files, the import may take a while.'
         },
+        {
+            label: 'Google Maps Timeline.json',
+            value: 'GOOGLE_TIMELINE_JSON',
+            accept: '.json',
+            description: 'Upload the <b>Timeline.json</b> exported from the Timeline of the Google Maps app (Settings → Location & privacy → Export Timeline data) here. It will then be imported into Thereabout.'
+        },
         {
             label: 'WhatsApp Chat History',
             value: 'WHATSAPP_CHAT',
@@ -1,4 +1,4 @@
-import {Component, OnInit} from '@angular/core';
+import {Component, OnInit, ViewChild} from '@angular/core';
 import {
     GoogleMap,
     MapGeocoder,
@@ -40,6 +40,7 @@ import {TabsModule} from "primeng/tabs";
 import {AvatarModule} from "primeng/avatar";
 import {ToggleSwitchModule} from "primeng/toggleswitch";
 import {ToolbarComponent} from "../../shared/toolbar/toolbar.component";
+import {forkJoin, Subscription} from "rxjs";
 
 
 @Component({
@@ -84,8 +85,10 @@ export class LocationhistoryComponent implements OnInit {
     searchValue: string = '';
 
     // Heatmap
+    @ViewChild(GoogleMap) map?: GoogleMap;
     heatmapOptions = {radius: 8, maxIntensity: 2};
-    heatmapData: { lng: number; lat: number }[] = [];
+    heatmapData: google.maps.visualization.WeightedLocation[] = [];
+    private heatmapSubscription?: Subscription;
     fromDate: Date = new Date(new Date().setFullYear(new Date().getFullYear() - 1));
     toDate: Date = new Date();
     alwaysShowHeatmap = true;
@@ -163,14 +166,53 @@ export class LocationhistoryComponent implements OnInit {
     }
 
     loadHeatmapData() {
-        if (!this.fromDate || !this.toDate) return;
-        this.locationService.getSparseLocations(this.dateToString(this.fromDate), this.dateToString(this.toDate)).subscribe(locations => {
-            this.heatmapData = locations.map(location => {
-                return {lat: location.latitude, lng: location.longitude}
+        const bounds = this.map?.getBounds();
+        const zoom = this.map?.getZoom();
+        if (!this.fromDate || !this.toDate || !bounds || zoom === undefined) return;
+
+        // Tiles two levels above the map zoom cover the viewport with a handful of requests
+        const tileZoom = Math.max(0, Math.min(20, Math.floor(zoom) - 2));
+        const tiles = this.tilesCovering(bounds, tileZoom).map(tile =>
+            this.locationService.getHeatmapTile(tile.z, tile.x, tile.y, this.dateToString(this.fromDate), this.dateToString(this.toDate)));
+        // Only the latest viewport and date range count, a slower response of an older one must not overwrite it
+        this.heatmapSubscription?.unsubscribe();
+        if (tiles.length === 0) {
+            // forkJoin of nothing completes without emitting
+            this.heatmapData = [];
+            return;
+        }
+        this.heatmapSubscription = forkJoin(tiles).subscribe(heatmapTiles => {
+            this.heatmapData = heatmapTiles.flatMap(tile => tile.cells).map(cell => {
+                return {location: new google.maps.LatLng(cell.latitude, cell.longitude), weight: cell.count}
             });
         });
     }
 
+    private tilesCovering(bounds: google.maps.LatLngBounds, z: number) {
+        const tileCount = 2 ** z;
+        const column = (lng: number) => Math.floor((lng + 180) / 360 * tileCount);
+        const row = (lat: number) => {
+            const latRad = Math.max(-85.0511, Math.min(85.0511, lat)) * Math.PI / 180;
+            return Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * tileCount);
+        };
+        const west = column(bounds.getSouthWest().lng());
+        let east = column(bounds.getNorthEast().lng());
+        if (east < west) {
+            // the viewport crosses the antimeridian
+            east += tileCount;
+        }
+        const north = Math.max(0, row(bounds.getNorthEast().lat()));
+        const south = Math.min(tileCount - 1, row(bounds.getSouthWest().lat()));
+
+        const tiles: { z: number, x: number, y: number }[] = [];
+        for (let x = west; x <= Math.min(east, west + tileCount - 1); x++) {
+            for (let y = north; y <= south; y++) {
+                tiles.push({z: z, x: ((x % tileCount) + tileCount) % tileCount, y: y});
+            }
+        }
+        return tiles;
+    }
+
     loadDayViewData(preselectedLocationId?: number) {
         if (!this.exactDate) return;
         this.locationService.getLocations(this.dateToString(this.exactDate), this.dateToString(this.exactDate)).subscribe(locations => {